@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.benchmarks;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.minidev.json.JSONValue;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * compares two jmh result files (written with -rf json) and flags every
+ * benchmark that got slower than the threshold percentage, the exit code is
+ * the number of regressions so that a build can fail on it
+ *
+ * usage: BenchmarkCompare baseline.json current.json [threshold-percent]
+ *
+ * @author pthomas3
+ */
+public class BenchmarkCompare {
+
+    private static final double DEFAULT_THRESHOLD = 10;
+
+    private BenchmarkCompare() {
+        // only static methods
+    }
+
+    private static String getKey(Map<String, Object> result) {
+        String key = (String) result.get("benchmark");
+        Map<String, Object> params = (Map) result.get("params");
+        if (params != null) {
+            key = key + " " + params;
+        }
+        return key;
+    }
+
+    protected static Map<String, Map<String, Object>> read(File file) throws Exception {
+        String json = FileUtils.readFileToString(file, "utf-8");
+        List<Map<String, Object>> results = (List) JSONValue.parse(json);
+        Map<String, Map<String, Object>> map = new LinkedHashMap<>(results.size());
+        for (Map<String, Object> result : results) {
+            map.put(getKey(result), result);
+        }
+        return map;
+    }
+
+    private static double getScore(Map<String, Object> result) {
+        Map<String, Object> metric = (Map) result.get("primaryMetric");
+        return ((Number) metric.get("score")).doubleValue();
+    }
+
+    /**
+     * positive means slower, for every mode except throughput a higher
+     * score is worse
+     */
+    protected static double getSlowdown(Map<String, Object> baseline, Map<String, Object> current) {
+        double before = getScore(baseline);
+        double after = getScore(current);
+        double change = (after - before) * 100 / before;
+        return "thrpt".equals(current.get("mode")) ? -change : change;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: BenchmarkCompare baseline.json current.json [threshold-percent]");
+            System.exit(-1);
+        }
+        Map<String, Map<String, Object>> baseline = read(new File(args[0]));
+        Map<String, Map<String, Object>> current = read(new File(args[1]));
+        double threshold = args.length > 2 ? Double.valueOf(args[2]) : DEFAULT_THRESHOLD;
+        int regressions = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : current.entrySet()) {
+            String key = entry.getKey();
+            Map<String, Object> before = baseline.get(key);
+            if (before == null) {
+                System.out.println(String.format("%-100s | new", key));
+                continue;
+            }
+            double slowdown = getSlowdown(before, entry.getValue());
+            String unit = (String) ((Map) entry.getValue().get("primaryMetric")).get("scoreUnit");
+            String flag = slowdown > threshold ? " | REGRESSION" : "";
+            if (!flag.isEmpty()) {
+                regressions++;
+            }
+            System.out.println(String.format("%-100s | %12.3f -> %12.3f %s | %+7.1f%% slower%s",
+                    key, getScore(before), getScore(entry.getValue()), unit, slowdown, flag));
+        }
+        System.out.println(String.format("regressions (more than %.1f%% slower): %d", threshold, regressions));
+        System.exit(regressions);
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.benchmarks;
+
+import com.intuit.karate.BsonUtils;
+import com.intuit.karate.HttpClientPool;
+import com.intuit.karate.JsonUtils;
+import com.intuit.karate.RequestFilter;
+import com.jayway.jsonpath.JsonPath;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * building a B{} request body and posting it through the pooled client to a
+ * local server, best run with -prof gc, the allocation per op then includes
+ * the copy that the connector makes of every request body when buffering
+ *
+ * @author pthomas3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BsonRequestBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private HttpServer server;
+    private WebTarget target;
+    private Map<String, Object> jsonMap;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] buffer = new byte[8192];
+            try (InputStream is = exchange.getRequestBody()) {
+                while (is.read(buffer) != -1) {
+                    // drain
+                }
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        Client client = HttpClientPool.getClient(new HttpClientPool.Config(false, null, null, null, null,
+                HttpClientPool.DEFAULT_MAX_TOTAL, HttpClientPool.DEFAULT_MAX_PER_HOST, HttpClientPool.DEFAULT_IDLE_TIMEOUT));
+        target = client.target("http://localhost:" + server.getAddress().getPort() + "/bson");
+        jsonMap = JsonUtils.toJsonDoc(Documents.json(size)).read("$");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private int post(InputStream is, RequestEntityProcessing processing) {
+        Entity entity = Entity.entity(is, MediaType.APPLICATION_OCTET_STREAM_TYPE);
+        Invocation.Builder builder = target.request().property(RequestFilter.KARATE_DOT_HEADERS, Collections.emptyMap());
+        if (processing != null) {
+            builder.property(ClientProperties.REQUEST_ENTITY_PROCESSING, processing);
+        }
+        Response response = builder.post(entity);
+        response.close();
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int postViaJsonString() { // how a B{} request body used to be built
+        JSONObject o = JSONValue.parse(JsonPath.parse(jsonMap).jsonString(), JSONObject.class);
+        return post(new ByteArrayInputStream(BsonUtils.toByteArray(BsonUtils.jsonToBson(o))), null);
+    }
+
+    @Benchmark
+    public int postRawBson() {
+        return post(BsonUtils.toInputStream(BsonUtils.toRawBson(jsonMap)), null);
+    }
+
+    @Benchmark
+    public int postRawBsonChunked() { // without the buffering copy, but not what karate sends
+        return post(BsonUtils.toInputStream(BsonUtils.toRawBson(jsonMap)), RequestEntityProcessing.CHUNKED);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.benchmarks;
+
+import com.intuit.karate.BsonUtils;
+import com.intuit.karate.JsonUtils;
+import com.intuit.karate.XmlUtils;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * parsing and converting between json, xml and bson
+ *
+ * @author pthomas3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private String json;
+    private String xml;
+    private Document xmlDoc;
+    private JSONObject jsonObject;
+    private Map<String, Object> jsonMap;
+
+    @Setup
+    public void setup() {
+        json = Documents.json(size);
+        xml = Documents.xml(size);
+        xmlDoc = XmlUtils.toXmlDoc(xml);
+        jsonObject = (JSONObject) JSONValue.parse(json);
+        jsonMap = JsonUtils.toJsonDoc(json).read("$");
+    }
+
+    @Benchmark
+    public DocumentContext parseJson() {
+        return JsonUtils.toJsonDoc(json);
+    }
+
+    @Benchmark
+    public Document parseXml() {
+        return XmlUtils.toXmlDoc(xml);
+    }
+
+    @Benchmark
+    public DocumentContext xmlToJson() {
+        return XmlUtils.toJsonDoc(xmlDoc);
+    }
+
+    @Benchmark
+    public BsonDocument jsonToBson() {
+        return BsonUtils.jsonToBson(jsonObject);
+    }
+
+    @Benchmark
+    public byte[] mapToBsonViaJsonString() { // how a B{} request body used to be built
+        JSONObject o = JSONValue.parse(JsonPath.parse(jsonMap).jsonString(), JSONObject.class);
+        return BsonUtils.toByteArray(BsonUtils.jsonToBson(o));
+    }
+
+    @Benchmark
+    public RawBsonDocument mapToRawBson() {
+        return BsonUtils.toRawBson(jsonMap);
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.benchmarks;
+
+import com.intuit.karate.ScriptContext;
+import com.intuit.karate.ScriptEnv;
+import java.io.File;
+
+/**
+ * json and xml test documents of a given size, so that results for
+ * different sizes can be compared
+ *
+ * @author pthomas3
+ */
+public class Documents {
+
+    private Documents() {
+        // only static methods
+    }
+
+    public static int getItemCount(String size) {
+        switch (size) {
+            case "small":
+                return 1;
+            case "medium":
+                return 50;
+            case "large":
+                return 1000;
+            case "huge":
+                return 100000; // about 10 MB of json
+            default:
+                throw new RuntimeException("unknown size: " + size);
+        }
+    }
+
+    public static String json(String size) {
+        int count = getItemCount(size);
+        StringBuilder sb = new StringBuilder("{ \"name\": \"cats\", \"items\": [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{ \"id\": ").append(i)
+                    .append(", \"name\": \"cat").append(i).append('"')
+                    .append(", \"active\": ").append(i % 2 == 0)
+                    .append(", \"weight\": ").append(i * 1.5)
+                    .append(", \"tags\": [\"a\", \"b\"] }");
+        }
+        return sb.append("] }").toString();
+    }
+
+    public static String xml(String size) {
+        int count = getItemCount(size);
+        StringBuilder sb = new StringBuilder("<cats><name>cats</name>");
+        for (int i = 0; i < count; i++) {
+            sb.append("<cat id=\"").append(i).append("\"><name>cat").append(i).append("</name>")
+                    .append("<active>").append(i % 2 == 0).append("</active>")
+                    .append("<weight>").append(i * 1.5).append("</weight></cat>");
+        }
+        return sb.append("</cats>").toString();
+    }
+
+    public static ScriptContext context() {
+        ScriptEnv env = ScriptEnv.test("dev", new File("."));
+        return new ScriptContext(env, null, null);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.benchmarks;
+
+import com.intuit.karate.AssertionResult;
+import com.intuit.karate.JsonUtils;
+import com.intuit.karate.MatchType;
+import com.intuit.karate.Script;
+import com.intuit.karate.ScriptContext;
+import com.intuit.karate.XmlUtils;
+import com.jayway.jsonpath.JsonPath;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Script.matchNamed of a json / xml document against an equal copy, so that
+ * every node is compared
+ *
+ * @author pthomas3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private ScriptContext context;
+
+    @Setup
+    public void setup() {
+        context = Documents.context();
+        String json = Documents.json(size);
+        context.getVars().put("actualJson", JsonUtils.toJsonDoc(json));
+        context.getVars().put("expectedJson", JsonUtils.toJsonDoc(json));
+        List items = new ArrayList(JsonUtils.toJsonDoc(json).read("$.items", List.class));
+        Collections.reverse(items); // worst case for a linear search
+        context.getVars().put("expectedItems", JsonPath.parse(items));
+        String xml = Documents.xml(size);
+        context.getVars().put("actualXml", XmlUtils.toXmlDoc(xml));
+        context.getVars().put("expectedXml", XmlUtils.toXmlDoc(xml));
+        context.getVars().put("expectedItem", JsonUtils.toJsonDoc("{ id: '#number', name: '#string', active: '#boolean', weight: '#number', tags: '#array' }"));
+    }
+
+    @Benchmark
+    public AssertionResult matchJsonEquals() {
+        return Script.matchNamed("actualJson", null, "expectedJson", context);
+    }
+
+    @Benchmark
+    public AssertionResult matchJsonEachWithFuzzyMarkers() {
+        return Script.matchNamed(MatchType.EACH_EQUALS, "actualJson", "$.items", "expectedItem", context);
+    }
+
+    @Benchmark
+    public AssertionResult matchJsonContains() {
+        return Script.matchNamed(MatchType.CONTAINS, "actualJson", "$.items", "expectedItems", context);
+    }
+
+    @Benchmark
+    public AssertionResult matchXmlEquals() {
+        return Script.matchNamed("actualXml", null, "expectedXml", context);
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.benchmarks;
+
+import com.intuit.karate.Script;
+import com.intuit.karate.ScriptContext;
+import com.intuit.karate.ScriptValue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Script.eval of the kinds of expressions that appear on the right of a 'def'
+ *
+ * @author pthomas3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptEvalBenchmark {
+
+    private ScriptContext context;
+
+    @Setup
+    public void setup() {
+        context = Documents.context();
+        Script.assign("id", "42", context);
+        Script.assign("name", "'Billie'", context);
+        Script.assign("cat", "{ id: 42, name: 'Billie', kittens: [{ id: 1 }, { id: 2 }] }", context);
+    }
+
+    @Benchmark
+    public ScriptValue evalJsExpression() {
+        return Script.eval("id + 1", context);
+    }
+
+    @Benchmark
+    public ScriptValue evalJsonPath() {
+        return Script.eval("cat.kittens[1].id", context);
+    }
+
+    @Benchmark
+    public ScriptValue evalJsonLiteral() {
+        return Script.eval("{ id: 42, name: 'Billie', tags: ['a', 'b'] }", context);
+    }
+
+    @Benchmark
+    public ScriptValue evalEmbeddedExpressions() {
+        return Script.eval("{ id: '#(id)', name: '#(name)', kitten: '#(cat.kittens[0])', next: '#(id + 1)' }", context);
+    }
+
+    @Benchmark
+    public ScriptValue evalXmlLiteral() {
+        return Script.eval("<cat><id>#(id)</id><name>#(name)</name></cat>", context);
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.io.ByteBufferBsonInput;
+
+/**
+ * a json map over the bytes of a bson document, that decodes only what is
+ * looked up. a get() skips over the other values without decoding them, and
+ * a nested document is another BsonMap over the same bytes. anything that
+ * needs all the keys (or a write) decodes this level once, into a plain map.
+ * the values are the same as what BsonUtils.bsonToJson() gives
+ *
+ * reads change the state, and a response can be read by many threads at once
+ * (e.g. when a feature is called with callThreads), so all access is
+ * synchronized
+ *
+ * @author pthomas3
+ */
+public class BsonMap extends AbstractMap<String, Object> {
+
+    private static final Object NOT_FOUND = new Object();
+
+    private final RawBsonDocument doc;
+    private final byte[] bytes; // shared with the parent and all the children
+    private Map<String, Object> found; // what get() has decoded so far
+    private Map<String, Object> decoded; // everything, only once needed
+
+    public BsonMap(RawBsonDocument doc) {
+        this.doc = doc;
+        this.bytes = doc.getByteBuffer().asNIO().array();
+    }
+
+    /**
+     * a copy over the same bytes, only the values that have been decoded
+     * already (and so may have been changed) are copied, using the function
+     * given, the others are decoded from the bytes by the copy when needed
+     */
+    public synchronized BsonMap copy(UnaryOperator<Object> copyValue) {
+        BsonMap copy = new BsonMap(doc);
+        if (decoded != null) {
+            copy.decoded = new LinkedHashMap<>(decoded.size());
+            decoded.forEach((k, v) -> copy.decoded.put(k, copyValue.apply(v)));
+        } else if (found != null) {
+            copy.found = new HashMap<>(found.size());
+            found.forEach((k, v) -> copy.found.put(k, copyValue.apply(v)));
+        }
+        return copy;
+    }
+
+    private BsonBinaryReader createReader() {
+        // positions are of the whole byte array, not relative to this document
+        return new BsonBinaryReader(new ByteBufferBsonInput(doc.getByteBuffer()));
+    }
+
+    private synchronized Object find(Object key) {
+        if (decoded != null) {
+            return decoded.containsKey(key) ? decoded.get(key) : NOT_FOUND;
+        }
+        if (found != null && found.containsKey(key)) {
+            return found.get(key);
+        }
+        Object value = NOT_FOUND;
+        BsonBinaryReader reader = createReader();
+        try {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (reader.readName().equals(key)) {
+                    value = readValue(reader, false);
+                    break;
+                }
+                reader.skipValue();
+            }
+        } finally {
+            reader.close();
+        }
+        if (value != NOT_FOUND) { // so that the same instance is returned next time
+            if (found == null) {
+                found = new HashMap<>();
+            }
+            found.put((String) key, value);
+        }
+        return value;
+    }
+
+    private synchronized Map<String, Object> decodeAll() {
+        if (decoded == null) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            BsonBinaryReader reader = createReader();
+            try {
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    String key = reader.readName();
+                    if (found != null && found.containsKey(key)) {
+                        reader.skipValue();
+                        map.put(key, found.get(key));
+                    } else {
+                        map.put(key, readValue(reader, false));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            decoded = map;
+            found = null;
+        }
+        return decoded;
+    }
+
+    private Object readValue(BsonBinaryReader reader, boolean inArray) {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                return new BsonMap(readRaw(reader));
+            case ARRAY:
+                return readList(readRaw(reader));
+            case STRING:
+                return reader.readString();
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DOUBLE:
+                return reader.readDouble();
+            case BOOLEAN:
+                return reader.readBoolean();
+            case DATE_TIME:
+                return reader.readDateTime();
+            case TIMESTAMP:
+                return reader.readTimestamp().getTime();
+            case NULL:
+                reader.readNull();
+                return null;
+            case BINARY:
+                byte[] data = reader.readBinaryData().getData();
+                return inArray ? new String(data) : data; // just like bsonToJson()
+            default:
+                return new BsonValueCodec().decode(reader, DecoderContext.builder().build()).toString();
+        }
+    }
+
+    // a document or array, as a view of the same bytes
+    private RawBsonDocument readRaw(BsonBinaryReader reader) {
+        int start = reader.getBsonInput().getPosition();
+        int length = (bytes[start] & 0xff) | (bytes[start + 1] & 0xff) << 8
+                | (bytes[start + 2] & 0xff) << 16 | (bytes[start + 3] & 0xff) << 24;
+        reader.skipValue();
+        return new RawBsonDocument(bytes, start, length);
+    }
+
+    // a bson array is a document with the keys "0", "1" ... and is read in one pass
+    private List<Object> readList(RawBsonDocument array) {
+        List<Object> list = new ArrayList<>();
+        BsonBinaryReader reader = new BsonBinaryReader(new ByteBufferBsonInput(array.getByteBuffer()));
+        try {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                reader.skipName();
+                list.add(readValue(reader, true));
+            }
+        } finally {
+            reader.close();
+        }
+        return list;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = find(key);
+        return value == NOT_FOUND ? null : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    @Override
+    public synchronized int size() {
+        if (decoded != null) {
+            return decoded.size();
+        }
+        return doc.size(); // counts the keys without decoding the values
+    }
+
+    @Override
+    public synchronized Object put(String key, Object value) {
+        return decodeAll().put(key, value);
+    }
+
+    @Override
+    public synchronized Object remove(Object key) {
+        return decodeAll().remove(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return decodeAll().entrySet();
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.intuit.karate;
 
 
+import com.jayway.jsonpath.DocumentContext;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.bson.*;
@@ -10,8 +12,15 @@ import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
 import org.bson.io.BasicOutputBuffer;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -20,6 +29,10 @@ import java.util.Date;
 public class BsonUtils {
     private static Codec<BsonDocument> DOC_CODEC = new BsonDocumentCodec();
 
+    public static final int MAX_REUSED_BUFFER_SIZE = 1024 * 1024; // bigger buffers are not held on to
+
+    private static final ThreadLocal<BasicOutputBuffer> BUFFER = ThreadLocal.withInitial(BasicOutputBuffer::new);
+
     private BsonUtils(){}
 
     public static byte[] toByteArray(BsonDocument bsonDocument){
@@ -29,6 +42,102 @@ public class BsonUtils {
         return outputBuffer.toByteArray();
     }
 
+    /**
+     * encodes a json map straight to bson, without building a BsonDocument
+     * tree first. the bytes are written into a re-used per-thread buffer and
+     * copied out once, into the returned document
+     */
+    public static RawBsonDocument toRawBson(Map<String, Object> map) {
+        BasicOutputBuffer buffer = BUFFER.get();
+        try {
+            BsonBinaryWriter writer = new BsonBinaryWriter(buffer);
+            writeDocument(writer, map);
+            return new RawBsonDocument(Arrays.copyOf(buffer.getInternalBuffer(), buffer.getSize()));
+        } finally {
+            if (buffer.getInternalBuffer().length > MAX_REUSED_BUFFER_SIZE) {
+                BUFFER.remove();
+            } else {
+                buffer.truncateToPosition(0);
+            }
+        }
+    }
+
+    /**
+     * for a RawBsonDocument this streams the bytes it already holds, without
+     * copying them
+     */
+    public static InputStream toInputStream(BsonDocument bsonDocument) {
+        if (bsonDocument instanceof RawBsonDocument) {
+            ByteBuffer buf = ((RawBsonDocument) bsonDocument).getByteBuffer().asNIO();
+            return new ByteArrayInputStream(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        }
+        return new ByteArrayInputStream(toByteArray(bsonDocument));
+    }
+
+    private static void writeDocument(BsonWriter writer, Map<String, Object> map) {
+        writer.writeStartDocument();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writer.writeName(entry.getKey());
+            writeValue(writer, entry.getValue());
+        }
+        writer.writeEndDocument();
+    }
+
+    // the bson types are the same as for jsonToBson() of the same json
+    private static void writeValue(BsonWriter writer, Object val) {
+        if (val instanceof DocumentContext) { // from an embedded expression
+            val = ((DocumentContext) val).read("$");
+        } else if (val instanceof ScriptObjectMirror && ((ScriptObjectMirror) val).isArray()) {
+            val = new ArrayList(((ScriptObjectMirror) val).values());
+        }
+        if (val == null) {
+            writer.writeNull();
+        } else if (val instanceof Map) {
+            writeDocument(writer, (Map<String, Object>) val);
+        } else if (val instanceof List) {
+            writer.writeStartArray();
+            for (Object o : (List) val) {
+                writeValue(writer, o);
+            }
+            writer.writeEndArray();
+        } else if (val instanceof String) {
+            writer.writeString((String) val);
+        } else if (val instanceof Integer || val instanceof Short || val instanceof Byte) {
+            writer.writeInt32(((Number) val).intValue());
+        } else if (val instanceof Long) {
+            long l = (Long) val;
+            if (l == (int) l) { // would have been parsed as an int from json
+                writer.writeInt32((int) l);
+            } else {
+                writer.writeInt64(l);
+            }
+        } else if (val instanceof Double || val instanceof Float) {
+            writer.writeDouble(((Number) val).doubleValue());
+        } else if (val instanceof Boolean) {
+            writer.writeBoolean((Boolean) val);
+        } else if (val instanceof Date) {
+            writer.writeDateTime(((Date) val).getTime());
+        } else if (val instanceof byte[]) {
+            writer.writeBinaryData(new BsonBinary((byte[]) val));
+        } else {
+            writer.writeString(val.toString());
+        }
+    }
+
+    /**
+     * wraps the bytes without copying or decoding them, so only the length
+     * and the terminating zero are checked
+     *
+     * @return null if this is obviously not a bson document
+     */
+    public static RawBsonDocument wrapRawBson(byte[] bytes) {
+        if (bytes == null || bytes.length < 5 || bytes[bytes.length - 1] != 0) {
+            return null;
+        }
+        int length = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        return length == bytes.length ? new RawBsonDocument(bytes) : null;
+    }
+
     public static BsonDocument fromByteArray(byte[] bytes){
         BsonDocument bsonDoc = null;
         if (bytes != null && bytes.length > 0){
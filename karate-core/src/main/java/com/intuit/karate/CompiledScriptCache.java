@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * bounded lru cache of compiled js expressions, compiled scripts are tied to
+ * the engine that created them, so one instance per (thread-confined) engine
+ * 
+ * @author pthomas3
+ */
+public class CompiledScriptCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    private final Compilable compiler;
+    private final Map<String, CompiledScript> cache;
+
+    public CompiledScriptCache(ScriptEngine engine) {
+        this(engine, DEFAULT_MAX_SIZE);
+    }
+
+    public CompiledScriptCache(ScriptEngine engine, int maxSize) {
+        this.compiler = (Compilable) engine;
+        this.cache = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public CompiledScript get(String exp) throws ScriptException {
+        CompiledScript compiled = cache.get(exp);
+        if (compiled != null) {
+            HIT_COUNT.incrementAndGet();
+            return compiled;
+        }
+        MISS_COUNT.incrementAndGet();
+        compiled = compiler.compile(exp);
+        cache.put(exp, compiled);
+        return compiled;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public static long getHitCount() {
+        return HIT_COUNT.get();
+    }
+
+    public static long getMissCount() {
+        return MISS_COUNT.get();
+    }
+
+}
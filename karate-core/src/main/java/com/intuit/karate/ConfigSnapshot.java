@@ -0,0 +1,318 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import net.minidev.json.JSONValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * the result of evaluating karate-config.js, kept once per karate.env (and
+ * class-loader) when the config opts in via configure configCache
+ *
+ * the first context to need the config for an env evaluates it while holding
+ * the lock, so the config runs once even when scenarios start in parallel
+ *
+ * @author pthomas3
+ */
+public class ConfigSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigSnapshot.class);
+
+    // js globals, that a function can use without declaring them
+    private static final Set<String> JS_NAMES = new HashSet<>(Arrays.asList(
+            "undefined", "arguments", "NaN", "Infinity", "Object", "Function", "Array", "String", "Number",
+            "Boolean", "Math", "JSON", "Date", "RegExp", "Error", "TypeError", "ReferenceError", "SyntaxError",
+            "RangeError", "parseInt", "parseFloat", "isNaN", "isFinite", "encodeURI", "encodeURIComponent",
+            "decodeURI", "decodeURIComponent", "escape", "unescape", "eval", "print", "load",
+            "Java", "Packages", "java", "javax", "com", "org", "net", "edu"));
+
+    // nashorn's own parser, returns the syntax tree as json (mozilla parser api)
+    private static final String PARSE_FUNCTION
+            = "function(s){ return Java.type('jdk.nashorn.api.scripting.ScriptUtils').parse(s, 'karate-config', false) }";
+
+    private static final Map<ClassLoader, Map<String, ConfigSnapshot>> CACHE
+            = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean resolved;
+
+    // set once resolved, and only if the config opted in
+    protected ScriptContext context;
+    protected Map<String, String> functions; // js function source by variable name
+    protected String headers; // source, if configure headers is a js function
+    protected List<String> perScenario;
+
+    private static ConfigSnapshot of(ScriptEnv env) {
+        Map<String, ConfigSnapshot> map = CACHE.computeIfAbsent(env.fileClassLoader, k -> new ConcurrentHashMap<>());
+        return map.computeIfAbsent(env.env == null ? "" : env.env, k -> new ConfigSnapshot());
+    }
+
+    /**
+     * returns null when the config has to be evaluated, in which case the
+     * caller must call done() once it has, even if the evaluation failed
+     */
+    public static ConfigSnapshot get(ScriptEnv env) {
+        ConfigSnapshot cs = of(env);
+        if (!cs.resolved) {
+            cs.lock.lock();
+            if (!cs.resolved) {
+                return null; // lock is held until done()
+            }
+            cs.lock.unlock();
+        }
+        return cs.context == null ? null : cs;
+    }
+
+    public static ConfigSnapshot done(ScriptContext context, List<String> perScenario) {
+        ConfigSnapshot cs = of(context.env);
+        if (!cs.lock.isHeldByCurrentThread()) { // config did not opt in earlier
+            return null;
+        }
+        try {
+            if (perScenario != null && cs.freeze(context, perScenario)) {
+                logger.debug("karate-config.js snapshot created for env: {}", context.env.env);
+            }
+            cs.resolved = true;
+        } finally {
+            cs.lock.unlock();
+        }
+        return cs.context == null ? null : cs;
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * functions are re-created from their source for every scenario, which
+     * loses any variables they closed over (e.g. a 'var' in the config
+     * function), so if there are any, the config is not cached at all
+     *
+     * @return false if the config has to be evaluated for every scenario
+     */
+    private boolean freeze(ScriptContext source, List<String> keys) {
+        Set<String> known = new HashSet<>(source.vars.keySet()); // all bound when a function is called
+        known.add(ScriptContext.KARATE_NAME);
+        known.add(ScriptContext.VAR_READ);
+        List<String> functionSources = new ArrayList<>();
+        for (String key : source.vars.keySet()) {
+            ScriptValue sv = source.vars.get(key);
+            if (sv.getType() == ScriptValue.Type.JS_FUNCTION) {
+                functionSources.add(sv.getValue(ScriptObjectMirror.class).toString());
+            }
+        }
+        if (source.headers.getType() == ScriptValue.Type.JS_FUNCTION) {
+            functionSources.add(source.headers.getValue(ScriptObjectMirror.class).toString());
+        }
+        for (String fs : functionSources) {
+            Set<String> names = getFreeNames(fs);
+            if (names == null) {
+                logger.warn("karate-config.js will be evaluated for every scenario, because a function could not be parsed: {}", fs);
+                return false;
+            }
+            names.removeAll(known);
+            if (!names.isEmpty()) {
+                logger.warn("karate-config.js will be evaluated for every scenario, because a function uses "
+                        + "variables that are not config keys: {} - {}", names, fs);
+                return false;
+            }
+        }
+        ScriptContext frozen = new ScriptContext(source.env, source, null);
+        Map<String, String> sources = new HashMap<>();
+        frozen.vars.clear(); // so that the snapshot owns every value, reading it never writes
+        for (String key : source.vars.keySet()) {
+            ScriptValue sv = source.vars.get(key);
+            if (sv.getType() == ScriptValue.Type.JS_FUNCTION) {
+                sources.put(key, sv.getValue(ScriptObjectMirror.class).toString());
+                frozen.vars.put(key, sv);
+            } else {
+                frozen.vars.put(key, Script.copy(sv));
+            }
+        }
+        if (frozen.headers.getType() == ScriptValue.Type.JS_FUNCTION) {
+            headers = frozen.headers.getValue(ScriptObjectMirror.class).toString();
+        } else {
+            frozen.headers = Script.copy(frozen.headers);
+        }
+        functions = sources;
+        perScenario = keys;
+        context = frozen;
+        return true;
+    }
+
+    /**
+     * the names a js function uses but does not declare (as a 'var', function,
+     * parameter or catch parameter in its own or an enclosing scope) and that
+     * are not js globals, using the syntax tree from the nashorn parser
+     *
+     * @return null if the source could not be parsed
+     */
+    protected static Set<String> getFreeNames(String source) {
+        Map<String, Object> tree;
+        try {
+            ScriptValue parse = Script.evalInNashorn(PARSE_FUNCTION, null);
+            String json = (String) parse.getValue(ScriptObjectMirror.class).call(null, "(" + source + ")");
+            tree = (Map) JSONValue.parse(json);
+        } catch (Exception e) {
+            logger.debug("failed to parse function: {}", e.getMessage());
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        collectFreeNames(tree, new ArrayDeque<>(), names);
+        return names;
+    }
+
+    private static void collectFreeNames(Object o, Deque<Set<String>> scopes, Set<String> names) {
+        if (o instanceof List) {
+            for (Object item : (List) o) {
+                collectFreeNames(item, scopes, names);
+            }
+            return;
+        }
+        if (!(o instanceof Map)) {
+            return;
+        }
+        Map<String, Object> node = (Map) o;
+        String type = (String) node.get("type");
+        if (type == null) { // e.g. an object literal property
+            collectFreeNames(node.get("value"), scopes, names);
+            return;
+        }
+        switch (type) {
+            case "Identifier":
+                String name = (String) node.get("name");
+                if (!JS_NAMES.contains(name) && !isDeclared(name, scopes)) {
+                    names.add(name);
+                }
+                return;
+            case "FunctionExpression":
+            case "FunctionDeclaration":
+                Set<String> scope = new HashSet<>();
+                if (type.equals("FunctionExpression")) { // a declaration is named in the enclosing scope
+                    addName(node.get("id"), scope);
+                }
+                for (Object param : (List) node.get("params")) {
+                    addName(param, scope);
+                }
+                collectDeclared(node.get("body"), scope);
+                scopes.push(scope);
+                collectFreeNames(node.get("defaults"), scopes, names);
+                collectFreeNames(node.get("body"), scopes, names);
+                scopes.pop();
+                return;
+            case "Program":
+                Set<String> global = new HashSet<>();
+                collectDeclared(node.get("body"), global);
+                scopes.push(global);
+                collectFreeNames(node.get("body"), scopes, names);
+                scopes.pop();
+                return;
+            case "CatchClause":
+                Set<String> catchScope = new HashSet<>();
+                addName(node.get("param"), catchScope);
+                scopes.push(catchScope);
+                collectFreeNames(node.get("guard"), scopes, names);
+                collectFreeNames(node.get("body"), scopes, names);
+                scopes.pop();
+                return;
+            case "VariableDeclarator": // the name was already declared (hoisted)
+                collectFreeNames(node.get("init"), scopes, names);
+                return;
+            case "MemberExpression":
+                collectFreeNames(node.get("object"), scopes, names);
+                if (Boolean.TRUE.equals(node.get("computed"))) {
+                    collectFreeNames(node.get("property"), scopes, names);
+                }
+                return;
+            case "LabeledStatement":
+                collectFreeNames(node.get("body"), scopes, names);
+                return;
+            case "BreakStatement":
+            case "ContinueStatement":
+                return;
+            default:
+                for (Object value : node.values()) {
+                    collectFreeNames(value, scopes, names);
+                }
+        }
+    }
+
+    // the vars and function declarations of a function body, but not of the functions within it
+    private static void collectDeclared(Object o, Set<String> scope) {
+        if (o instanceof List) {
+            for (Object item : (List) o) {
+                collectDeclared(item, scope);
+            }
+            return;
+        }
+        if (!(o instanceof Map)) {
+            return;
+        }
+        Map<String, Object> node = (Map) o;
+        String type = (String) node.get("type");
+        if ("VariableDeclarator".equals(type)) {
+            addName(node.get("id"), scope);
+        } else if ("FunctionDeclaration".equals(type)) {
+            addName(node.get("id"), scope);
+            return;
+        } else if ("FunctionExpression".equals(type)) {
+            return;
+        }
+        for (Object value : node.values()) {
+            collectDeclared(value, scope);
+        }
+    }
+
+    private static void addName(Object o, Set<String> scope) {
+        if (o instanceof Map && "Identifier".equals(((Map) o).get("type"))) {
+            scope.add((String) ((Map) o).get("name"));
+        }
+    }
+
+    private static boolean isDeclared(String name, Deque<Set<String>> scopes) {
+        for (Set<String> scope : scopes) {
+            if (scope.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -11,6 +11,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import static com.intuit.karate.Script.eval;
+import com.intuit.karate.cucumber.FeatureCache;
 import com.intuit.karate.cucumber.FeatureWrapper;
 import com.jayway.jsonpath.DocumentContext;
 
@@ -66,8 +67,7 @@ public class FileUtils {
             String contents = readFileAsString(fileName, isClassPath(text), context);
             return new ScriptValue(contents);
         } else if (isFeatureFile(text)) {
-            String contents = readFileAsString(fileName, isClassPath(text), context);
-            FeatureWrapper feature = FeatureWrapper.fromString(contents, context.env); // TODO determine file dir
+            FeatureWrapper feature = readFeature(fileName, isClassPath(text), context); // TODO determine file dir
             return new ScriptValue(feature);
         } else if (isYamlFile(text)) {
             String contents = readFileAsString(fileName, isClassPath(text), context);
@@ -79,6 +79,25 @@ public class FileUtils {
         }        
     }       
     
+    private static FeatureWrapper readFeature(String path, boolean classpath, ScriptContext context) {
+        String location;
+        long lastModified;
+        if (classpath) {
+            URL url = context.env.fileClassLoader.getResource(path);
+            if (url == null) { // will fail with the usual error
+                return FeatureWrapper.fromString(readFileAsString(path, true, context), context.env);
+            }
+            location = url.toString();
+            File file = org.apache.commons.io.FileUtils.toFile(url);
+            lastModified = file == null ? 0 : file.lastModified(); // zero if within a jar
+        } else {
+            File file = new File(context.env.featureDir + File.separator + path);
+            location = file.getAbsolutePath();
+            lastModified = file.lastModified();
+        }
+        return FeatureCache.get(location, lastModified, () -> readFileAsString(path, classpath, context), context.env);
+    }
+
     public static String readFileAsString(String path, boolean classpath, ScriptContext context) {
         InputStream is = getFileStream(path, classpath, context);
         try {
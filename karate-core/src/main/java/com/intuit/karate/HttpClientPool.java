@@ -0,0 +1,252 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * process-wide http clients, one per distinct configuration, so that
+ * connections (and tls sessions) are kept alive and re-used across scenarios
+ *
+ * a client and its connection pool live until shutdown() is called, which a
+ * jvm shutdown hook does, so expect one pool per distinct configuration (for
+ * example per read timeout) for the lifetime of the jvm
+ *
+ * @author pthomas3
+ */
+public class HttpClientPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientPool.class);
+
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_MAX_PER_HOST = 20;
+    public static final int DEFAULT_IDLE_TIMEOUT = 30000;
+
+    private static final long EVICTION_INTERVAL = 5000;
+
+    private static final Map<Config, PooledClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService evictor;
+    private static boolean shutdownHookAdded;
+
+    private HttpClientPool() {
+        // only static methods
+    }
+
+    public static Client getClient(Config config) {
+        return CLIENTS.computeIfAbsent(config, HttpClientPool::create).client;
+    }
+
+    private static PooledClient create(Config config) {
+        logger.debug("creating pooled http client for: {}", config);
+        RegistryBuilder<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory());
+        ClientConfig cc = new ClientConfig();
+        if (config.sslEnabled) {
+            logger.info("ssl enabled, initializing generic trusted certificate / key-store with algorithm: {}", config.sslAlgorithm);
+            SSLContext ssl = SslUtils.getSslContext(config.sslAlgorithm);
+            registry.register("https", new SSLConnectionSocketFactory(ssl, NoopHostnameVerifier.INSTANCE));
+        } else {
+            registry.register("https", SSLConnectionSocketFactory.getSocketFactory());
+        }
+        Registry<ConnectionSocketFactory> sockets = registry.build();
+        PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(sockets);
+        cm.setMaxTotal(config.maxTotal);
+        cm.setDefaultMaxPerRoute(config.maxPerHost);
+        cc.connectorProvider(new ApacheConnectorProvider());
+        cc.property(ApacheClientProperties.CONNECTION_MANAGER, cm);
+        cc.property(ApacheClientProperties.DISABLE_COOKIES, true); // karate manages cookies per scenario
+        cc.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED);
+        if (config.proxyUri != null) {
+            cc.property(ClientProperties.PROXY_URI, config.proxyUri);
+        }
+        if (config.proxyUsername != null) {
+            cc.property(ClientProperties.PROXY_USERNAME, config.proxyUsername);
+        }
+        if (config.proxyPassword != null) {
+            cc.property(ClientProperties.PROXY_PASSWORD, config.proxyPassword);
+        }
+        Client client = ClientBuilder.newBuilder()
+                .withConfig(cc)
+                .register(new LoggingFilter()) // must be first
+                .register(MultiPartFeature.class)
+                .register(new RequestFilter())
+                .build();
+        startEvictorIfNeeded();
+        return new PooledClient(client, cm, config.idleTimeout);
+    }
+
+    private static synchronized void startEvictorIfNeeded() {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "karate-http-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(HttpClientPool::evictIdleConnections, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(HttpClientPool::shutdown, "karate-http-pool-shutdown"));
+            shutdownHookAdded = true;
+        }
+    }
+
+    /**
+     * closes all the clients and their connections, call this only once no
+     * more requests are in flight, a later getClient() creates a new client
+     */
+    public static void shutdown() {
+        synchronized (HttpClientPool.class) {
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+        }
+        for (Config config : CLIENTS.keySet()) {
+            PooledClient pc = CLIENTS.remove(config);
+            if (pc == null) {
+                continue;
+            }
+            try {
+                pc.client.close();
+                pc.connectionManager.shutdown();
+            } catch (Exception e) {
+                logger.warn("closing pooled http client failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void evictIdleConnections() {
+        for (PooledClient pc : CLIENTS.values()) {
+            try {
+                pc.connectionManager.closeExpiredConnections();
+                pc.connectionManager.closeIdleConnections(pc.idleTimeout, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                logger.warn("idle connection eviction failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public static int size() {
+        return CLIENTS.size();
+    }
+
+    private static class PooledClient {
+
+        final Client client;
+        final PoolingHttpClientConnectionManager connectionManager;
+        final long idleTimeout;
+
+        PooledClient(Client client, PoolingHttpClientConnectionManager connectionManager, long idleTimeout) {
+            this.client = client;
+            this.connectionManager = connectionManager;
+            this.idleTimeout = idleTimeout;
+        }
+
+    }
+
+    /**
+     * immutable, the pooling key, so only the settings that need a connection
+     * pool of their own, timeouts are set per request
+     */
+    public static class Config {
+
+        private final boolean sslEnabled;
+        private final String sslAlgorithm;
+        private final String proxyUri;
+        private final String proxyUsername;
+        private final String proxyPassword;
+        private final int maxTotal;
+        private final int maxPerHost;
+        private final int idleTimeout;
+
+        public Config(boolean sslEnabled, String sslAlgorithm, String proxyUri, String proxyUsername, String proxyPassword,
+                int maxTotal, int maxPerHost, int idleTimeout) {
+            this.sslEnabled = sslEnabled;
+            this.sslAlgorithm = sslAlgorithm;
+            this.proxyUri = proxyUri;
+            this.proxyUsername = proxyUsername;
+            this.proxyPassword = proxyPassword;
+            this.maxTotal = maxTotal;
+            this.maxPerHost = maxPerHost;
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Config)) {
+                return false;
+            }
+            Config that = (Config) o;
+            return sslEnabled == that.sslEnabled
+                    && maxTotal == that.maxTotal
+                    && maxPerHost == that.maxPerHost
+                    && idleTimeout == that.idleTimeout
+                    && Objects.equals(sslAlgorithm, that.sslAlgorithm)
+                    && Objects.equals(proxyUri, that.proxyUri)
+                    && Objects.equals(proxyUsername, that.proxyUsername)
+                    && Objects.equals(proxyPassword, that.proxyPassword);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sslEnabled, sslAlgorithm, proxyUri, proxyUsername, proxyPassword, maxTotal, maxPerHost, idleTimeout);
+        }
+
+        @Override
+        public String toString() {
+            return "ssl: " + (sslEnabled ? sslAlgorithm : false) + ", proxy: " + proxyUri
+                    + ", maxTotal: " + maxTotal + ", maxPerHost: " + maxPerHost + ", idleTimeout: " + idleTimeout;
+        }
+
+    }
+
+}
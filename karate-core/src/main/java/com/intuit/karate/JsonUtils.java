@@ -27,6 +27,8 @@ import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +46,23 @@ public class JsonUtils {
         // only static methods
     }
 
+    private static final int JSON_PATH_CACHE_MAX_SIZE = 1000;
+    private static final Map<String, JsonPath> JSON_PATH_CACHE = new ConcurrentHashMap<>();
+
+    public static JsonPath compileJsonPath(String path) {
+        JsonPath jsonPath = JSON_PATH_CACHE.get(path);
+        if (jsonPath == null) {
+            jsonPath = JsonPath.compile(path);
+            if (JSON_PATH_CACHE.size() >= JSON_PATH_CACHE_MAX_SIZE) {
+                // crude, but paths in a test suite are mostly static, so this should be rare
+                logger.debug("json path cache full, clearing");
+                JSON_PATH_CACHE.clear();
+            }
+            JSON_PATH_CACHE.put(path, jsonPath);
+        }
+        return jsonPath;
+    }
+
     public static DocumentContext toJsonDoc(String raw) {
         return JsonPath.parse(raw);
     }
@@ -74,7 +93,7 @@ public class JsonUtils {
             List list;
             String listPath = left + "." + right;
             try {
-                list = doc.read(listPath);
+                list = doc.read(compileJsonPath(listPath));
                 if (index < list.size()) {
                     list.set(index, value);
                 } else {
@@ -84,10 +103,10 @@ public class JsonUtils {
                 logger.trace("will create non-existent path: {}", listPath);
                 list = new ArrayList();
                 list.add(value);
-                doc.put(left, right, list);
+                doc.put(compileJsonPath(left), right, list);
             }
         } else {
-            doc.put(left, right, value);
+            doc.put(compileJsonPath(left), right, value);
         }
         logger.trace("after set: {}", doc.jsonString());
     }
@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * buckets the elements of a list by a structural hash, so that 'match contains'
+ * only has to compare an expected element with the actual elements that could
+ * be equal to it. the hash is a hint, 'equal' elements (which can be lenient,
+ * for e.g. 1 and 1.0) are expected to end up in the same bucket, but callers
+ * still have to do the full comparison - and a full scan if nothing matched
+ *
+ * @author pthomas3
+ */
+public class ListIndex {
+
+    public static final int MIN_SIZE = 16; // below this a plain scan is just as fast
+
+    private final Map<Integer, List<Integer>> buckets = new HashMap<>();
+
+    public ListIndex(List list) {
+        int count = list.size();
+        for (int i = 0; i < count; i++) {
+            buckets.computeIfAbsent(hash(list.get(i)), k -> new ArrayList<>(1)).add(i);
+        }
+    }
+
+    /**
+     * @return the positions in the list of the elements that could be equal to
+     * the argument, in order
+     */
+    public List<Integer> get(Object o) {
+        List<Integer> list = buckets.get(hash(o));
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    /**
+     * @return false if the expected object has anything that does not match by
+     * equality - for e.g. validators, fuzzy markers or embedded expressions
+     */
+    public static boolean isIndexable(Object o) {
+        if (o instanceof String) {
+            return !Script.isValidator((String) o);
+        } else if (o instanceof Map) {
+            for (Object value : ((Map) o).values()) {
+                if (!isIndexable(value)) {
+                    return false;
+                }
+            }
+        } else if (o instanceof List) {
+            for (Object value : (List) o) {
+                if (!isIndexable(value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public static int hash(Object o) {
+        if (o == null) {
+            return 0;
+        } else if (o instanceof Map) {
+            int h = 1;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) o).entrySet()) {
+                if (entry.getValue() != null) { // a null value matches a missing key
+                    h += entry.getKey().hashCode() ^ hash(entry.getValue());
+                }
+            }
+            return h;
+        } else if (o instanceof List) {
+            int h = 2;
+            for (Object value : (List) o) {
+                h = 31 * h + hash(value);
+            }
+            return h;
+        } else if (o instanceof Number) {
+            return hashNumber(((Number) o).doubleValue());
+        } else if (o instanceof String) {
+            String s = (String) o;
+            if (isNumeric(s)) { // a string will match a number if the text is the same
+                try {
+                    return hashNumber(Double.parseDouble(s));
+                } catch (NumberFormatException e) {
+                    return s.hashCode();
+                }
+            }
+            return s.hashCode();
+        } else if (o instanceof Boolean) {
+            return o.hashCode();
+        } else { // no attempt to be smart, one bucket for everything else
+            return 3;
+        }
+    }
+
+    private static boolean isNumeric(String s) {
+        if (s.isEmpty()) {
+            return false;
+        }
+        char c = s.charAt(0);
+        return (c >= '0' && c <= '9') || c == '-' || c == '.';
+    }
+
+    private static int hashNumber(double d) {
+        if (d == 0) {
+            return 0; // also takes care of -0.0
+        }
+        if (d == Math.rint(d) && !Double.isInfinite(d)) { // so that 1, 1L, 1.0 and a big decimal of 1.00 are in the same bucket
+            return Long.hashCode((long) d);
+        }
+        return Double.hashCode(d);
+    }
+
+}
@@ -44,6 +44,7 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.WriterInterceptor;
 import javax.ws.rs.ext.WriterInterceptorContext;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,11 +57,28 @@ public class LoggingFilter implements ClientRequestFilter, ClientResponseFilter,
     private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
 
     private static final String LOGGING_OUTPUT_STREAM_KEY = LoggingFilter.class.getName();
+    private static final String LOGGING_ID_KEY = LOGGING_OUTPUT_STREAM_KEY + ".id";
+    public static final String MAX_BYTES_KEY = LOGGING_OUTPUT_STREAM_KEY + ".maxBytes";
     private static final String[] PRINTABLES = {"json", "xml", "text", "urlencoded", "html"};
-    private static final Charset UTF8 = Charset.forName("UTF-8");    
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static final int DEFAULT_MAX_BYTES = 65536;
 
     private final AtomicInteger counter = new AtomicInteger();
 
+    public static int validateMaxBytes(int maxBytes) {
+        if (maxBytes < 1 || maxBytes == Integer.MAX_VALUE) {
+            throw new RuntimeException("invalid value for max bytes to log: " + maxBytes);
+        }
+        return maxBytes;
+    }
+
+    // per request, because the client (and this filter) is shared by all the scenarios with the same http config
+    private static int getMaxBytes(ClientRequestContext request) {
+        Integer maxBytes = (Integer) request.getProperty(MAX_BYTES_KEY);
+        return maxBytes == null ? DEFAULT_MAX_BYTES : maxBytes;
+    }
+
     private static boolean isPrintable(MediaType mediaType) {
         if (mediaType == null) {
             return false;
@@ -91,15 +109,26 @@ public class LoggingFilter implements ClientRequestFilter, ClientResponseFilter,
         }
     }
 
+    private static void logBody(StringBuilder sb, byte[] bytes, int maxBytes, boolean truncated, Charset charset) {
+        sb.append(new String(bytes, 0, Math.min(bytes.length, maxBytes), charset)).append('\n');
+        if (truncated) {
+            sb.append("... (truncated to ").append(maxBytes).append(" bytes)\n");
+        }
+    }
+
     @Override
     public void filter(ClientRequestContext request) throws IOException {
+        if (!logger.isDebugEnabled()) { // no id, no buffering, so the other call-backs do nothing either
+            return;
+        }
         int id = counter.incrementAndGet();
+        request.setProperty(LOGGING_ID_KEY, id); // the client (and this filter) is shared across threads
         StringBuilder sb = new StringBuilder();
         sb.append('\n').append(id).append(" > ").append(request.getMethod()).append(' ')
                 .append(request.getUri().toASCIIString()).append('\n');
         logHeaders(sb, id, '>', request.getStringHeaders());
         if (request.hasEntity() && isPrintable(request.getMediaType())) {
-            LoggingFilterOutputStream out = new LoggingFilterOutputStream(request.getEntityStream(), sb);
+            LoggingFilterOutputStream out = new LoggingFilterOutputStream(request.getEntityStream(), sb, getMaxBytes(request));
             request.setEntityStream(out);
             request.setProperty(LOGGING_OUTPUT_STREAM_KEY, out);
         } else {
@@ -109,19 +138,24 @@ public class LoggingFilter implements ClientRequestFilter, ClientResponseFilter,
 
     @Override
     public void filter(ClientRequestContext request, ClientResponseContext response) throws IOException {
-        int id = counter.get();
+        Integer id = (Integer) request.getProperty(LOGGING_ID_KEY);
+        if (id == null) { // debug was off when the request was sent
+            return;
+        }
         StringBuilder sb = new StringBuilder();
         sb.append('\n').append(id).append(" < ").append(response.getStatus()).append('\n');
         logHeaders(sb, id, '<', response.getHeaders());
         if (response.hasEntity() && isPrintable(response.getMediaType())) {
+            int maxBytes = getMaxBytes(request);
             InputStream is = response.getEntityStream();
             if (!is.markSupported()) {
                 is = new BufferedInputStream(is);
             }
-            is.mark(Integer.MAX_VALUE);
-            String buffer = IOUtils.toString(is, getCharset(response.getMediaType()));
-            sb.append(buffer).append('\n');
+            // one byte more than we log, just to know if there is more
+            is.mark(maxBytes + 1);
+            byte[] bytes = IOUtils.toByteArray(new BoundedInputStream(is, maxBytes + 1));
             is.reset();
+            logBody(sb, bytes, maxBytes, bytes.length > maxBytes, getCharset(response.getMediaType()));
             response.setEntityStream(is); // in case it was swapped
         }
         logger.debug(sb.toString());
@@ -133,25 +167,45 @@ public class LoggingFilter implements ClientRequestFilter, ClientResponseFilter,
         context.proceed();
         if (out != null) {
             StringBuilder sb = out.buffer;
-            sb.append(new String(out.byteStream.toByteArray(), getCharset(context.getMediaType()))).append('\n');
+            byte[] bytes = out.byteStream.toByteArray();
+            logBody(sb, bytes, out.maxBytes, out.total > out.maxBytes, getCharset(context.getMediaType()));
             logger.debug(sb.toString());
         }
     }
 
+    /**
+     * keeps a copy of at most the first 'maxBytes' written
+     */
     private static class LoggingFilterOutputStream extends FilterOutputStream {
 
         protected final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
         protected final StringBuilder buffer;
+        private final int maxBytes;
+        protected long total;
 
-        public LoggingFilterOutputStream(OutputStream out, StringBuilder sb) {
+        public LoggingFilterOutputStream(OutputStream out, StringBuilder sb, int maxBytes) {
             super(out);
             this.buffer = sb;
+            this.maxBytes = maxBytes;
         }
 
         @Override
         public void write(int b) throws IOException {
-            super.write(b);
-            byteStream.write(b);
+            out.write(b);
+            if (total < maxBytes) {
+                byteStream.write(b);
+            }
+            total++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len); // the super-class would write one byte at a time
+            long count = Math.min(len, maxBytes - total);
+            if (count > 0) {
+                byteStream.write(b, off, (int) count);
+            }
+            total += len;
         }
 
     }
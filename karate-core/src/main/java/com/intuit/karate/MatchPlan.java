@@ -0,0 +1,605 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.validator.RegexValidator;
+import com.intuit.karate.validator.ValidationResult;
+import com.intuit.karate.validator.Validator;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import javax.script.CompiledScript;
+import org.apache.commons.lang3.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * an expected value compiled once into a tree that mirrors it, where the
+ * validators, regexes and js of fuzzy markers are looked-up or compiled up
+ * front, instead of for every node of every match. plain values (strings,
+ * numbers, null) are not compiled, and are read from the expected value at
+ * match time. so one plan can be re-used for every element of a 'match each',
+ * and for every match against the same expected template
+ *
+ * @author pthomas3
+ */
+public class MatchPlan {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchPlan.class);
+
+    public static final int CACHE_SIZE = 32;
+    public static final int PARALLEL_MIN_SIZE = 1000; // below this, splitting the work costs more than it saves
+    public static final int PARALLEL_MIN_CHUNK_SIZE = 250;
+
+    // a plan can hold compiled js, which is tied to the engine of the thread
+    private static final ThreadLocal<Map<String, MatchPlan>> CACHE = ThreadLocal.withInitial(()
+            -> new LinkedHashMap<String, MatchPlan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MatchPlan> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    private enum Type {
+        VALUE, MAP, LIST, EMBEDDED, REGEX, PREDICATE, VALIDATOR
+    }
+
+    private final Type type;
+    private final String text; // the fuzzy marker or embedded expression
+    private final String[] keys;
+    private final MatchPlan[] children; // null if the child is a plain value
+    private final Validator validator;
+    private final String js;
+    private CompiledScript compiled;
+    private Boolean scriptFree;
+    private Object exp; // the expected value, re-bound if the plan is re-used
+
+    private MatchPlan(Object exp, ScriptContext context) {
+        this.exp = exp;
+        String s = exp instanceof String ? (String) exp : null;
+        if (exp instanceof Map) {
+            type = Type.MAP;
+            int size = ((Map) exp).size();
+            keys = new String[size];
+            children = new MatchPlan[size];
+        } else if (exp instanceof List) {
+            type = Type.LIST;
+            keys = null;
+            children = new MatchPlan[((List) exp).size()];
+        } else if (s != null && Script.isEmbeddedExpression(s)) {
+            type = Type.EMBEDDED;
+            keys = null;
+            children = null;
+        } else if (s != null && Script.isValidator(s)) {
+            String validatorName = s.substring(1);
+            if (validatorName.startsWith("regex")) {
+                type = Type.REGEX;
+            } else if (validatorName.startsWith("?")) {
+                type = Type.PREDICATE;
+            } else {
+                type = Type.VALIDATOR;
+            }
+            keys = null;
+            children = null;
+        } else {
+            type = Type.VALUE;
+            keys = null;
+            children = null;
+        }
+        text = type == Type.VALUE ? null : s;
+        switch (type) {
+            case EMBEDDED:
+                js = s.substring(1);
+                validator = null;
+                break;
+            case PREDICATE:
+                js = s.substring(2);
+                validator = null;
+                break;
+            case REGEX:
+                js = null;
+                validator = new RegexValidator(s.substring(6));
+                break;
+            case VALIDATOR:
+                js = null;
+                validator = context.validators.get(s.substring(1)); // can be null
+                break;
+            default:
+                js = null;
+                validator = null;
+        }
+    }
+
+    private static boolean isPlain(Object o) {
+        if (o instanceof String) {
+            return !Script.isValidator((String) o);
+        }
+        return !(o instanceof Map) && !(o instanceof List);
+    }
+
+    /**
+     * @return false if the plan has any js in it, which is bound to the thread
+     * and may have side-effects
+     */
+    public boolean isScriptFree() {
+        if (scriptFree == null) { // depends only on the structure, which never changes
+            scriptFree = findScript() == null;
+        }
+        return scriptFree;
+    }
+
+    private MatchPlan findScript() {
+        Deque<MatchPlan> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            MatchPlan plan = pending.pop();
+            if (plan.js != null) {
+                return plan;
+            }
+            if (plan.children != null) {
+                for (MatchPlan child : plan.children) {
+                    if (child != null) {
+                        pending.push(child);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    public static MatchPlan compile(Object exp, ScriptContext context) {
+        MatchPlan root = new MatchPlan(exp, context);
+        Deque<MatchPlan> pending = new ArrayDeque<>(); // not recursive, for deeply nested documents
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            MatchPlan plan = pending.pop();
+            if (plan.type == Type.MAP) {
+                int i = 0;
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) plan.exp).entrySet()) {
+                    plan.keys[i] = entry.getKey();
+                    plan.children[i] = compileChild(entry.getValue(), context, pending);
+                    i++;
+                }
+            } else if (plan.type == Type.LIST) {
+                int i = 0;
+                for (Object o : (List) plan.exp) {
+                    plan.children[i++] = compileChild(o, context, pending);
+                }
+            }
+        }
+        return root;
+    }
+
+    private static MatchPlan compileChild(Object o, ScriptContext context, Deque<MatchPlan> pending) {
+        if (isPlain(o)) {
+            return null;
+        }
+        MatchPlan child = new MatchPlan(o, context);
+        pending.push(child);
+        return child;
+    }
+
+    /**
+     * re-uses the plan compiled the last time the same expression was matched
+     * on this thread, if the value it evaluated to has the same structure and
+     * fuzzy markers, plain values can be different
+     */
+    public static MatchPlan get(String expression, Object exp, ScriptContext context) {
+        Map<String, MatchPlan> cache = CACHE.get();
+        MatchPlan plan = cache.get(expression);
+        if (plan != null && plan.bind(exp)) {
+            return plan;
+        }
+        plan = compile(exp, context);
+        cache.put(expression, plan);
+        return plan;
+    }
+
+    private boolean bind(Object o) {
+        if (type == Type.VALUE) {
+            if (!isPlain(o)) {
+                return false;
+            }
+            exp = o;
+            return true;
+        }
+        Deque<MatchPlan> plans = new ArrayDeque<>();
+        Deque<Object> values = new ArrayDeque<>(); // only maps, lists and strings, never null
+        plans.push(this);
+        values.push(o);
+        while (!plans.isEmpty()) {
+            MatchPlan plan = plans.pop();
+            Object value = values.pop();
+            switch (plan.type) {
+                case MAP:
+                    if (!(value instanceof Map) || ((Map) value).size() != plan.keys.length) {
+                        return false;
+                    }
+                    int i = 0;
+                    for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                        if (!plan.keys[i].equals(entry.getKey()) // the order decides which failure is reported
+                                || !bindChild(plan.children[i], entry.getValue(), plans, values)) {
+                            return false;
+                        }
+                        i++;
+                    }
+                    break;
+                case LIST:
+                    if (!(value instanceof List) || ((List) value).size() != plan.children.length) {
+                        return false;
+                    }
+                    int j = 0;
+                    for (Object item : (List) value) {
+                        if (!bindChild(plan.children[j++], item, plans, values)) {
+                            return false;
+                        }
+                    }
+                    break;
+                default:
+                    if (!plan.text.equals(value)) {
+                        return false;
+                    }
+            }
+            plan.exp = value;
+        }
+        return true;
+    }
+
+    private static boolean bindChild(MatchPlan child, Object o, Deque<MatchPlan> plans, Deque<Object> values) {
+        if (child == null) {
+            return isPlain(o);
+        }
+        if (o == null) {
+            return false;
+        }
+        plans.push(child);
+        values.push(o);
+        return true;
+    }
+
+    public AssertionResult match(char delimiter, String path, MatchType matchType,
+            Object actRoot, Object actObject, ScriptContext context) {
+        if (type == Type.LIST && (matchType == MatchType.CONTAINS || matchType == MatchType.CONTAINS_ONLY)) {
+            return matchContains(delimiter, path, matchType, actRoot, (List) actObject, context);
+        }
+        Traversal t = new Traversal(delimiter, path, actRoot, context);
+        return t.run(this, matchType, actObject);
+    }
+
+    /**
+     * 'match each', in parallel on the common fork-join pool if asked for, the
+     * list is big enough and there is no js in the plan (the js engine and
+     * the script context are not thread-safe). the failure reported is always
+     * the one for the first element that fails, just like when one thread
+     * goes through the elements in order
+     */
+    public AssertionResult matchEach(String path, MatchType matchType, Object actRoot, List actList,
+            ScriptContext context, boolean parallel) {
+        int count = actList.size();
+        if (!parallel || count < PARALLEL_MIN_SIZE || !isScriptFree()) {
+            return matchEach(path, matchType, actRoot, actList, context, 0, count);
+        }
+        int chunkSize = Math.max(PARALLEL_MIN_CHUNK_SIZE, count / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        int chunkCount = (count + chunkSize - 1) / chunkSize;
+        AssertionResult[] failures = new AssertionResult[chunkCount];
+        AtomicInteger firstFailedChunk = new AtomicInteger(chunkCount);
+        // submitted explicitly, a parallel stream started by a worker of another fork-join pool
+        // (e.g. the one CucumberRunner.parallel() uses for scenarios) would run in that pool instead
+        ForkJoinPool.commonPool().submit(() -> IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            if (chunk > firstFailedChunk.get()) { // an earlier chunk has failed already
+                return;
+            }
+            int from = chunk * chunkSize;
+            AssertionResult ar = matchEach(path, matchType, actRoot, actList, context, from, Math.min(from + chunkSize, count));
+            if (!ar.pass) {
+                failures[chunk] = ar;
+                firstFailedChunk.accumulateAndGet(chunk, Math::min);
+            }
+        })).join();
+        int chunk = firstFailedChunk.get();
+        return chunk == chunkCount ? AssertionResult.PASS : failures[chunk];
+    }
+
+    private AssertionResult matchEach(String path, MatchType matchType, Object actRoot, List actList,
+            ScriptContext context, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Object actListObject = actList.get(i);
+            String listPath = path + "[" + i + "]";
+            AssertionResult ar = match('.', listPath, matchType, actRoot, actListObject, context);
+            if (!ar.pass) {
+                return ar;
+            }
+        }
+        return AssertionResult.PASS;
+    }
+
+    private AssertionResult matchContains(char delimiter, String path, MatchType matchType,
+            Object actRoot, List actList, ScriptContext context) {
+        List expList = (List) exp;
+        int actCount = actList.size();
+        int expCount = expList.size();
+        if (matchType != MatchType.CONTAINS && actCount != expCount) {
+            return Script.matchFailed(path, actList, expList, "actual and expected arrays are not the same size - " + actCount + ":" + expCount);
+        }
+        ListIndex index = null;
+        for (int j = 0; j < expCount; j++) { // for each expected item in the list
+            Object expListObject = expList.get(j);
+            MatchPlan plan = children[j] == null ? compile(expListObject, context) : children[j];
+            boolean found = false;
+            if (actCount >= ListIndex.MIN_SIZE && expCount > 1 && ListIndex.isIndexable(expListObject)) {
+                if (index == null) {
+                    index = new ListIndex(actList);
+                }
+                for (int i : index.get(expListObject)) { // only the candidates with the same hash
+                    AssertionResult ar = plan.match(delimiter, buildListPath(delimiter, path, i), MatchType.EQUALS, actRoot, actList.get(i), context);
+                    if (ar.pass) {
+                        found = true;
+                        break;
+                    }
+                }
+            }
+            // the hash is only a hint, so if not found, fall back to comparing with every element
+            for (int i = 0; !found && i < actCount; i++) {
+                AssertionResult ar = plan.match(delimiter, buildListPath(delimiter, path, i), MatchType.EQUALS, actRoot, actList.get(i), context);
+                if (ar.pass) { // exact match, we found it
+                    found = true;
+                }
+            }
+            if (!found) {
+                return Script.matchFailed(path + "[*]", actList, expListObject, "actual value does not contain expected");
+            }
+        }
+        return AssertionResult.PASS; // all items were found
+    }
+
+    private static String buildListPath(char delimiter, String path, int index) {
+        int listIndex = delimiter == '/' ? index + 1 : index;
+        return path + "[" + listIndex + "]";
+    }
+
+    private CompiledScript getCompiled() {
+        if (compiled == null) { // not compiled up front, so that a bad script fails only when it is used
+            compiled = Script.compileInNashorn(js);
+        }
+        return compiled;
+    }
+
+    /**
+     * compares a single node, if the node is a map or list (and the sizes are
+     * fine), a frame is pushed to the stack so that the children are compared
+     * next
+     */
+    private AssertionResult matchNode(Traversal t, MatchType matchType, Object act) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("path: {}, actual: '{}', expected: '{}'", t.getPath(), act, exp);
+        }
+        switch (type) {
+            case MAP:
+                if (!(act instanceof Map)) {
+                    return t.fail(act, exp, "actual value is not of type 'map'");
+                }
+                Map actMap = (Map) act;
+                if (matchType != MatchType.CONTAINS && actMap.size() > keys.length) { // > is because of the chance of #ignore
+                    return t.fail(act, exp, "actual value has more keys than expected - " + actMap.size() + ":" + keys.length);
+                }
+                t.push(this, actMap, null);
+                return AssertionResult.PASS;
+            case LIST:
+                List actList = (List) act;
+                int actCount = actList.size();
+                if (actCount != children.length) {
+                    return t.fail(act, exp, "actual and expected arrays are not the same size - " + actCount + ":" + children.length);
+                }
+                t.push(this, null, actList);
+                return AssertionResult.PASS;
+            case EMBEDDED:
+                String path = t.getPath(); // needed to look up the parent
+                ScriptValue actValue = new ScriptValue(act);
+                ScriptValue parentValue = Script.getValueOfParentNode(t.actRoot, path);
+                ScriptValue expValue = Script.evalInNashorn(getCompiled(), js, t.context, actValue, parentValue);
+                return Script.matchNestedObject(t.delimiter, path, matchType, t.actRoot, act, expValue.getValue(), t.context);
+            case PREDICATE:
+                ScriptValue result = Script.evalInNashorn(getCompiled(), js, t.context,
+                        new ScriptValue(act), Script.getValueOfParentNode(t.actRoot, t.getPath()));
+                if (!result.isBooleanTrue()) {
+                    return t.fail(act, text, "did not evaluate to 'true'");
+                }
+                return AssertionResult.PASS;
+            case REGEX:
+            case VALIDATOR:
+                if (validator == null) {
+                    return t.fail(act, text, "unknown validator");
+                }
+                ValidationResult vr = validator.validate(new ScriptValue(act));
+                if (!vr.isPass()) { // TODO wrap string values in quotes
+                    return t.fail(act, text, vr.getMessage());
+                }
+                return AssertionResult.PASS;
+            default:
+                return matchValue(t, matchType, act, exp);
+        }
+    }
+
+    private static AssertionResult matchValue(Traversal t, MatchType matchType, Object act, Object exp) {
+        if (exp == null) {
+            if (act != null) {
+                return t.fail(act, exp, "actual value is not null");
+            }
+            return AssertionResult.PASS; // both are null
+        }
+        String reason;
+        if (exp instanceof String) {
+            if (matchType == MatchType.EQUALS && exp.equals(act)) { // most common, no need to look any further
+                return AssertionResult.PASS;
+            }
+            String actual = new ScriptValue(act).getAsString();
+            switch (matchType) {
+                case CONTAINS:
+                    if (!actual.contains((String) exp)) {
+                        return t.fail(actual, exp, "not a sub-string");
+                    }
+                    break;
+                case EQUALS:
+                    if (!exp.equals(actual)) {
+                        return t.fail(actual, exp, "not equal");
+                    }
+                    break;
+                default:
+                    throw new RuntimeException("unsupported match type for string: " + matchType);
+            }
+            return AssertionResult.PASS;
+        } else if (ClassUtils.isPrimitiveOrWrapper(exp.getClass())) {
+            reason = Script.comparePrimitive(act, exp);
+        } else if (exp instanceof BigDecimal) {
+            reason = Script.compareBigDecimal(act, (BigDecimal) exp);
+        } else { // this should never happen
+            throw new RuntimeException("unexpected type: " + exp.getClass());
+        }
+        return reason == null ? AssertionResult.PASS : t.fail(act, exp, reason);
+    }
+
+    /**
+     * one match, the stack of maps / lists being compared, and the child that
+     * is being compared in each, which is all that is needed to work out the
+     * path, and only if it is needed
+     */
+    private static class Traversal {
+
+        private final char delimiter;
+        private final String path;
+        private final Object actRoot;
+        private final ScriptContext context;
+        private final List<Frame> stack = new ArrayList<>(); // frames are re-used, only 'depth' of them are in use
+        private int depth;
+
+        Traversal(char delimiter, String path, Object actRoot, ScriptContext context) {
+            this.delimiter = delimiter;
+            this.path = path;
+            this.actRoot = actRoot;
+            this.context = context;
+        }
+
+        // iterative and not recursive, so that deeply nested documents don't overflow the stack
+        AssertionResult run(MatchPlan root, MatchType matchType, Object actObject) {
+            AssertionResult ar = root.matchNode(this, matchType, actObject);
+            while (ar.pass && depth > 0) {
+                Frame frame = stack.get(depth - 1);
+                if (!frame.next()) {
+                    depth--;
+                } else if (frame.childPlan == null) { // child nodes are always compared using 'equals'
+                    ar = matchValue(this, MatchType.EQUALS, frame.actChild, frame.expChild);
+                } else {
+                    ar = frame.childPlan.matchNode(this, MatchType.EQUALS, frame.actChild);
+                }
+            }
+            if (ar.pass) {
+                return ar;
+            }
+            for (int i = depth; i > 0; i--) { // a failure within a list is reported at every list level
+                Frame frame = stack.get(i - 1);
+                if (frame.actList != null) {
+                    ar = Script.matchFailed(getPath(i), frame.actChild, frame.expChild, "[" + ar.message + "]");
+                }
+            }
+            return ar;
+        }
+
+        void push(MatchPlan plan, Map actMap, List actList) {
+            if (depth == stack.size()) {
+                stack.add(new Frame());
+            }
+            stack.get(depth++).init(plan, actMap, actList);
+        }
+
+        AssertionResult fail(Object act, Object exp, String reason) {
+            return Script.matchFailed(getPath(), act, exp, reason);
+        }
+
+        String getPath() {
+            return getPath(depth);
+        }
+
+        String getPath(int count) {
+            StringBuilder sb = new StringBuilder(path);
+            for (int i = 0; i < count; i++) {
+                Frame frame = stack.get(i);
+                if (frame.actList != null) {
+                    sb.append('[').append(delimiter == '/' ? frame.index + 1 : frame.index).append(']');
+                } else {
+                    sb.append(delimiter).append(frame.plan.keys[frame.index]);
+                }
+            }
+            return sb.toString();
+        }
+
+    }
+
+    private static class Frame {
+
+        private MatchPlan plan;
+        private Map actMap;
+        private List actList;
+        private Map expMap;
+        private List expList;
+
+        private int index;
+        private MatchPlan childPlan;
+        private Object actChild;
+        private Object expChild;
+
+        void init(MatchPlan plan, Map actMap, List actList) {
+            this.plan = plan;
+            this.actMap = actMap;
+            this.actList = actList;
+            this.expMap = actMap == null ? null : (Map) plan.exp;
+            this.expList = actList == null ? null : (List) plan.exp;
+            index = -1;
+        }
+
+        boolean next() {
+            if (++index == plan.children.length) {
+                return false;
+            }
+            childPlan = plan.children[index];
+            if (actList != null) {
+                actChild = actList.get(index);
+                expChild = childPlan == null ? expList.get(index) : childPlan.exp;
+            } else {
+                String key = plan.keys[index];
+                actChild = actMap.get(key);
+                expChild = childPlan == null ? expMap.get(key) : childPlan.exp;
+            }
+            return true;
+        }
+
+    }
+
+}
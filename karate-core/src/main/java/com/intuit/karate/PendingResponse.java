@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.Response;
+
+/**
+ * handle for an http request fired with 'method <verb> async', the end time
+ * is captured on completion so that the response time is not inflated by a
+ * late 'await'
+ *
+ * @author pthomas3
+ */
+public class PendingResponse implements InvocationCallback<Response> {
+
+    private final String requestKey; // method and url template, for timings
+    private final URI uri;
+    private final boolean useBson;
+    private final long startTime;
+    private final long startNanos;
+    private volatile long endTime;
+    private volatile long endNanos;
+    private Future<Response> future;
+
+    public PendingResponse(String requestKey, URI uri, boolean useBson) {
+        this.requestKey = requestKey;
+        this.uri = uri;
+        this.useBson = useBson;
+        this.startTime = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    protected void setFuture(Future<Response> future) {
+        this.future = future;
+    }
+
+    public String getRequestKey() {
+        return requestKey;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public boolean isUseBson() {
+        return useBson;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    public long getResponseTime() {
+        long end = endTime == 0 ? System.currentTimeMillis() : endTime;
+        return end - startTime;
+    }
+
+    public long getResponseTimeNanos() {
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return end - startNanos;
+    }
+
+    public Response await() {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KarateException("interrupted while waiting for URL: " + uri, e);
+        } catch (ExecutionException e) {
+            String message = "http call failed after " + getResponseTime() + " milliseconds for URL: " + uri;
+            throw new KarateException(message, e.getCause());
+        }
+    }
+
+    @Override
+    public void completed(Response response) {
+        endNanos = System.nanoTime();
+        endTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public void failed(Throwable throwable) {
+        endNanos = System.nanoTime();
+        endTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString() {
+        return "pending: " + uri;
+    }
+
+}
@@ -19,39 +19,50 @@ public class RequestFilter implements ClientRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestFilter.class);
 
+    public static final String KARATE_DOT_HEADERS = "karate.headers";
+
     @Override
     public void filter(ClientRequestContext ctx) throws IOException {
-        ScriptContext context = (ScriptContext) ctx.getProperty(ScriptContext.KARATE_DOT_CONTEXT);
+        Map<String, Object> headersMap = (Map) ctx.getProperty(KARATE_DOT_HEADERS);
+        if (headersMap == null) { // not resolved up front, which async requests always are
+            ScriptContext context = (ScriptContext) ctx.getProperty(ScriptContext.KARATE_DOT_CONTEXT);
+            headersMap = resolveHeaders(context);
+        }
+        if (headersMap == null) {
+            return;
+        }
+        MultivaluedMap headers = ctx.getHeaders();
+        for (Map.Entry<String, Object> entry : headersMap.entrySet()) {
+            logger.trace("setting header: {}", entry);
+            headers.putSingle(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * evaluates the configured 'headers' on the calling thread, so async
+     * requests can resolve them before the request leaves the scenario thread
+     */
+    public static Map<String, Object> resolveHeaders(ScriptContext context) {
         ScriptValue headersValue = context.headers;
-        Map<String, Object> headersMap;
         switch (headersValue.getType()) {
             case JS_FUNCTION:
                 ScriptObjectMirror som = headersValue.getValue(ScriptObjectMirror.class);
                 ScriptValue sv = Script.evalFunctionCall(som, null, context);
                 switch (sv.getType()) {
                     case JS_OBJECT:
-                        headersMap = Script.toMap(sv.getValue(ScriptObjectMirror.class));
-                        break;
+                        return Script.toMap(sv.getValue(ScriptObjectMirror.class));
                     case MAP:
-                        headersMap = sv.getValue(Map.class);
-                        break;
+                        return sv.getValue(Map.class);
                     default:
                         logger.trace("custom headers function returned: {}", sv);
-                        return; // abort           
+                        return null; // abort           
                 }
-                break;
             case JSON:
                 DocumentContext json = headersValue.getValue(DocumentContext.class);
-                headersMap = json.read("$");
-                break;
+                return json.read("$");
             default:
                 logger.trace("configured 'headers' is not a map-like object or js function: {}", headersValue);
-                return;
-        }
-        MultivaluedMap headers = ctx.getHeaders();
-        for (Map.Entry<String, Object> entry : headersMap.entrySet()) {
-            logger.trace("setting header: {}", entry);
-            headers.putSingle(entry.getKey(), entry.getValue());
+                return null;
         }
     }
 
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * http response times by request (method and url template, e.g.
+ * GET http://host/cats/{id}), shared by all the threads of a run
+ *
+ * @author pthomas3
+ */
+public class RequestStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestStats.class);
+
+    public static final int MAX_KEYS = 1000;
+    public static final String OTHER_KEY = "{other}";
+
+    private final Map<String, Entry> entries;
+    private final long offsetNanos;
+
+    public RequestStats() {
+        this(new ConcurrentHashMap<>(), 0);
+    }
+
+    private RequestStats(Map<String, Entry> entries, long offsetNanos) {
+        this.entries = entries;
+        this.offsetNanos = offsetNanos;
+    }
+
+    /**
+     * records into the same histograms, but adds the given delay to every
+     * value - which is how a load test corrects for coordinated omission when
+     * a scenario starts later than it was scheduled to
+     */
+    public RequestStats withOffset(long offsetNanos) {
+        return new RequestStats(entries, offsetNanos);
+    }
+
+    public static String getKey(String method, String urlTemplate) {
+        return method + " " + urlTemplate;
+    }
+
+    private Entry getEntry(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        if (entries.size() >= MAX_KEYS) { // a url that is different for every request, keep memory bounded
+            if (entries.putIfAbsent(OTHER_KEY, new Entry()) == null) {
+                logger.warn("more than {} distinct requests, the timings of any new ones are recorded as: {}", MAX_KEYS, OTHER_KEY);
+            }
+            return entries.get(OTHER_KEY);
+        }
+        return entries.computeIfAbsent(key, k -> new Entry());
+    }
+
+    public void record(String key, long nanos) {
+        getEntry(key).histogram.record(nanos + offsetNanos);
+    }
+
+    public void recordError(String key) {
+        getEntry(key).errors.increment();
+    }
+
+    public void add(RequestStats other) {
+        for (Map.Entry<String, Entry> entry : other.entries.entrySet()) {
+            Entry target = getEntry(entry.getKey());
+            target.histogram.add(entry.getValue().histogram);
+            target.errors.add(entry.getValue().errors.sum());
+        }
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public Map<String, LatencyHistogram> getHistograms() { // sorted by key
+        Map<String, LatencyHistogram> map = new TreeMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().histogram);
+        }
+        return map;
+    }
+
+    public long getErrorCount(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.errors.sum();
+    }
+
+    /**
+     * summary per request, times in milliseconds - for reports
+     */
+    public List<Map<String, Object>> getSummary() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", entry.getKey());
+            map.put("count", h.getCount());
+            map.put("errors", getErrorCount(entry.getKey()));
+            map.put("min", LatencyHistogram.toMillis(h.getMin()));
+            map.put("mean", LatencyHistogram.toMillis((long) h.getMean()));
+            map.put("p50", LatencyHistogram.toMillis(h.getValueAtPercentile(50)));
+            map.put("p90", LatencyHistogram.toMillis(h.getValueAtPercentile(90)));
+            map.put("p99", LatencyHistogram.toMillis(h.getValueAtPercentile(99)));
+            map.put("max", LatencyHistogram.toMillis(h.getMax()));
+            list.add(map);
+        }
+        return list;
+    }
+
+    private static class Entry {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+    }
+
+}
@@ -33,33 +33,39 @@ import com.intuit.karate.validator.NotNullValidator;
 import com.intuit.karate.validator.NullValidator;
 import com.intuit.karate.validator.NumberValidator;
 import com.intuit.karate.validator.ObjectValidator;
-import com.intuit.karate.validator.RegexValidator;
 import com.intuit.karate.validator.StringValidator;
 import com.intuit.karate.validator.UuidValidator;
-import com.intuit.karate.validator.ValidationResult;
 import com.intuit.karate.validator.Validator;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
-import net.minidev.json.JSONObject;
-import net.minidev.json.JSONValue;
-import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Attr;
@@ -83,6 +89,19 @@ public class Script {
 
     private static final Logger logger = LoggerFactory.getLogger(Script.class);
 
+    // engine bootstrap is expensive, so re-use one per thread and only swap the bindings per evaluation
+    private static final ThreadLocal<ScriptEngine> NASHORN = ThreadLocal.withInitial(() -> {
+        logger.trace("initializing nashorn engine for thread: {}", Thread.currentThread().getName());
+        return new ScriptEngineManager().getEngineByName("nashorn");
+    });
+
+    private static final ThreadLocal<CompiledScriptCache> COMPILED_SCRIPTS
+            = ThreadLocal.withInitial(() -> new CompiledScriptCache(NASHORN.get()));
+
+    public static ScriptEngine getNashorn() {
+        return NASHORN.get();
+    }
+
     public static final boolean isCallSyntax(String text) {
         return text.startsWith("call ");
     }
@@ -214,9 +233,8 @@ public class Script {
             text = text.substring(1);
             DocumentContext doc = JsonUtils.toJsonDoc(text);
             evalJsonEmbeddedExpressions(doc, context);
-            JSONObject json = JSONValue.parse(doc.jsonString(), JSONObject.class);
-            BsonDocument bson = BsonUtils.jsonToBson(json);
-            return new ScriptValue(bson);
+            Map<String, Object> map = doc.read("$");
+            return new ScriptValue(BsonUtils.toRawBson(map));
         } else if (isXml(text)) {
             Document doc = XmlUtils.toXmlDoc(text);
             evalXmlEmbeddedExpressions(doc, context);
@@ -265,22 +283,23 @@ public class Script {
             logger.warn("no var found with name: {}", name);
             return ScriptValue.NULL;
         }
+        JsonPath jsonPath = JsonUtils.compileJsonPath(exp);
         switch (value.getType()) {
             case JSON:
                 DocumentContext doc = value.getValue(DocumentContext.class);
-                return new ScriptValue(doc.read(exp));
+                return new ScriptValue(doc.read(jsonPath));
             case MAP: // this happens because some jsonpath expressions evaluate to Map
                 Map<String, Object> map = value.getValue(Map.class);
                 DocumentContext fromMap = JsonPath.parse(map);
-                return new ScriptValue(fromMap.read(exp));
+                return new ScriptValue(fromMap.read(jsonPath));
             case LIST: // this happens because some jsonpath expressions evaluate to List
                 List list = value.getValue(List.class);
                 DocumentContext fromList = JsonPath.parse(list);
-                return new ScriptValue(fromList.read(exp));
+                return new ScriptValue(fromList.read(jsonPath));
             case XML: // time to auto-convert again
                 Document xml = value.getValue(Document.class);
                 DocumentContext xmlAsJson = XmlUtils.toJsonDoc(xml);
-                return new ScriptValue(xmlAsJson.read(exp));
+                return new ScriptValue(xmlAsJson.read(jsonPath));
             default:
                 throw new RuntimeException("cannot run jsonpath on type: " + value);
         }
@@ -291,16 +310,26 @@ public class Script {
     }
 
     public static ScriptValue evalInNashorn(String exp, ScriptContext context, ScriptValue selfValue, ScriptValue parentValue) {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        ScriptEngine nashorn = manager.getEngineByName("nashorn");
-        Bindings bindings = nashorn.getBindings(javax.script.ScriptContext.ENGINE_SCOPE);
-        if (context != null) {
-            Map<String, Object> map = context.getVariableBindings();
-            for (Map.Entry<String, Object> entry : map.entrySet()) {
-                bindings.put(entry.getKey(), entry.getValue());
-            }
-            bindings.put(ScriptContext.KARATE_NAME, new ScriptBridge(context));
+        return evalInNashorn(compileInNashorn(exp), exp, context, selfValue, parentValue);
+    }
+
+    /**
+     * @return compiled by (and only usable with) the js engine of this thread
+     */
+    public static CompiledScript compileInNashorn(String exp) {
+        try {
+            return COMPILED_SCRIPTS.get().get(exp);
+        } catch (Exception e) {
+            throw new RuntimeException("script failed: " + exp, e);
         }
+    }
+
+    public static ScriptValue evalInNashorn(CompiledScript compiled, String exp, ScriptContext context,
+            ScriptValue selfValue, ScriptValue parentValue) {
+        ScriptEngine nashorn = getNashorn();
+        // fresh bindings (and js global) for every evaluation, so that nothing leaks across steps
+        // variables are resolved lazily, only the ones the script refers to are converted
+        Bindings bindings = context == null ? nashorn.createBindings() : context.getVariableBindings();
         if (selfValue != null) {
             bindings.put(VAR_SELF, selfValue.getValue());
         }
@@ -308,7 +337,7 @@ public class Script {
             bindings.put(VAR_DOLLAR, parentValue.getAfterConvertingFromJsonOrXmlIfNeeded());
         }
         try {
-            Object o = nashorn.eval(exp);
+            Object o = compiled.eval(bindings);
             ScriptValue result = new ScriptValue(o);
             logger.trace("nashorn returned: {}", result);
             return result;
@@ -317,19 +346,76 @@ public class Script {
         }
     }
 
+    protected static final LongAdder COPIES = new LongAdder(); // calls to copy(), for tests
+
     public static ScriptValueMap clone(ScriptValueMap vars) {
-        ScriptValueMap temp = new ScriptValueMap();
-        for (Map.Entry<String, ScriptValue> entry : vars.entrySet()) {
-            String key = entry.getKey();
-            ScriptValue value = entry.getValue(); // TODO immutable / copy
-            temp.put(key, value);
+        return vars.copy(); // copy-on-write
+    }
+
+    /**
+     * a deep copy of a mutable value, so that changes made to the copy never
+     * affect the original, js objects and arrays are converted to java
+     */
+    public static ScriptValue copy(ScriptValue sv) {
+        COPIES.increment();
+        switch (sv.getType()) {
+            case JSON:
+                DocumentContext doc = sv.getValue(DocumentContext.class);
+                return new ScriptValue(JsonPath.parse(copyObject(doc.read("$"))));
+            case XML:
+                Node node = sv.getValue(Node.class);
+                return new ScriptValue(node.cloneNode(true));
+            case MAP:
+            case LIST:
+            case JS_OBJECT:
+            case JS_ARRAY:
+                return new ScriptValue(copyObject(sv.getValue()));
+            case BSON_DOCUMENT:
+                BsonDocument bson = sv.getValue(BsonDocument.class);
+                if (bson instanceof RawBsonDocument) { // immutable
+                    return sv;
+                }
+                return new ScriptValue(bson.clone());
+            default: // immutable
+                return sv;
+        }
+    }
+
+    private static Object copyObject(Object o) {
+        if (o instanceof BsonMap) { // stays lazy
+            return ((BsonMap) o).copy(Script::copyObject);
+        }
+        if (o instanceof ScriptObjectMirror) {
+            ScriptObjectMirror som = (ScriptObjectMirror) o;
+            if (som.isFunction()) {
+                return som;
+            }
+            if (som.isArray()) {
+                o = new ArrayList(som.values());
+            }
+        }
+        if (o instanceof Map) {
+            Map<String, Object> map = (Map) o;
+            Map<String, Object> copy = new LinkedHashMap<>(map.size());
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copyObject(entry.getValue()));
+            }
+            return copy;
+        }
+        if (o instanceof List) {
+            List list = (List) o;
+            List copy = new ArrayList(list.size());
+            for (Object item : list) {
+                copy.add(copyObject(item));
+            }
+            return copy;
         }
-        return temp;
+        return o;
     }
 
     public static Map<String, Object> simplify(ScriptValueMap vars) {
         Map<String, Object> map = new HashMap<>(vars.size());
-        for (Map.Entry<String, ScriptValue> entry : vars.entrySet()) {
+        for (Map.Entry<String, ScriptValue> entry : vars.rawEntrySet()) { // inherited values as they are, like before copy-on-write
             String key = entry.getKey();
             ScriptValue sv = entry.getValue();
             if (sv == null) {
@@ -526,62 +612,10 @@ public class Script {
 
     public static AssertionResult matchStringOrPattern(char delimiter, String path, MatchType matchType, Object actRoot,
             ScriptValue actValue, String expected, ScriptContext context) {
-        if (expected == null) {
-            if (!actValue.isNull()) {
-                return matchFailed(path, actValue.getValue(), expected, "actual value is not null");
-            }
-        } else if (isEmbeddedExpression(expected)) {
-            ScriptValue parentValue = getValueOfParentNode(actRoot, path);
-            ScriptValue expValue = evalInNashorn(expected.substring(1), context, actValue, parentValue);
-            return matchNestedObject(delimiter, path, matchType, actRoot, actValue.getValue(), expValue.getValue(), context);
-        } else if (isValidator(expected)) {
-            String validatorName = expected.substring(1);
-            if (validatorName.startsWith("regex")) {
-                String regex = validatorName.substring(5);
-                RegexValidator v = new RegexValidator(regex);
-                ValidationResult vr = v.validate(actValue);
-                if (!vr.isPass()) { // TODO wrap string values in quotes
-                    return matchFailed(path, actValue.getValue(), expected, vr.getMessage());
-                }
-            } else if (validatorName.startsWith("?")) {
-                String exp = validatorName.substring(1);
-                ScriptValue parentValue = getValueOfParentNode(actRoot, path);
-                ScriptValue result = Script.evalInNashorn(exp, context, actValue, parentValue);
-                if (!result.isBooleanTrue()) {
-                    return matchFailed(path, actValue.getValue(), expected, "did not evaluate to 'true'");
-                }
-            } else {
-                Validator v = context.validators.get(validatorName);
-                if (v == null) {
-                    return matchFailed(path, actValue.getValue(), expected, "unknown validator");
-                } else {
-                    ValidationResult vr = v.validate(actValue);
-                    if (!vr.isPass()) {
-                        return matchFailed(path, actValue.getValue(), expected, vr.getMessage());
-                    }
-                }
-            }
-        } else {
-            String actual = actValue.getAsString();
-            switch (matchType) {
-                case CONTAINS:
-                    if (!actual.contains(expected)) {
-                        return matchFailed(path, actual, expected, "not a sub-string");
-                    }
-                    break;
-                case EQUALS:
-                    if (!expected.equals(actual)) {
-                        return matchFailed(path, actual, expected, "not equal");
-                    }
-                    break;
-                default:
-                    throw new RuntimeException("unsupported match type for string: " + matchType);
-            }
-        }
-        return AssertionResult.PASS;
+        return MatchPlan.compile(expected, context).match(delimiter, path, matchType, actRoot, actValue.getValue(), context);
     }
 
-    private static ScriptValue getValueOfParentNode(Object actRoot, String path) {
+    protected static ScriptValue getValueOfParentNode(Object actRoot, String path) {
         if (actRoot instanceof DocumentContext) {
             Pair<String, String> parentAndLeaf = JsonUtils.getParentAndLeafPath(path);
             DocumentContext actDoc = (DocumentContext) actRoot;
@@ -611,7 +645,7 @@ public class Script {
         if ("/".equals(path)) {
             path = ""; // else error x-paths reported would start with "//"
         }
-        return matchNestedObject('/', path, matchType, actualDoc, actObject, expObject, context);
+        return MatchPlan.get(expression, expObject, context).match('/', path, matchType, actualDoc, actObject, context);
     }
 
     private static MatchType getInnerMatchType(MatchType outerMatchType) {
@@ -662,7 +696,7 @@ public class Script {
             default:
                 throw new RuntimeException("not json, cannot do json path for value: " + actual + ", path: " + path);
         }
-        Object actObject = actualDoc.read(path);
+        Object actObject = actualDoc.read(JsonUtils.compileJsonPath(path));
         ScriptValue expected = eval(expression, context);
         Object expObject;
         switch (expected.getType()) {
@@ -679,22 +713,14 @@ public class Script {
                     expObject = Collections.singletonList(expObject);
                 }
             case EQUALS:
-                return matchNestedObject('.', path, matchType, actualDoc, actObject, expObject, context);
+                return MatchPlan.get(expression, expObject, context).match('.', path, matchType, actualDoc, actObject, context);
             case EACH_CONTAINS:
             case EACH_EQUALS:
                 if (actObject instanceof List) {
                     List actList = (List) actObject;
                     MatchType listMatchType = getInnerMatchType(matchType);
-                    int actSize = actList.size();
-                    for (int i = 0; i < actSize; i++) {
-                        Object actListObject = actList.get(i);
-                        String listPath = path + "[" + i + "]";
-                        AssertionResult ar = matchNestedObject('.', listPath, listMatchType, actualDoc, actListObject, expObject, context);
-                        if (!ar.pass) {
-                            return ar;
-                        }
-                    }
-                    return AssertionResult.PASS;
+                    MatchPlan plan = MatchPlan.get(expression, expObject, context); // compiled once for all elements
+                    return plan.matchEach(path, listMatchType, actualDoc, actList, context, context.matchEachParallel);
                 } else {
                     throw new RuntimeException("'match each' failed, not a json array: + " + actual + ", path: " + path);
                 }
@@ -742,98 +768,16 @@ public class Script {
 
     public static AssertionResult matchNestedObject(char delimiter, String path, MatchType matchType,
             Object actRoot, Object actObject, Object expObject, ScriptContext context) {
-        logger.trace("path: {}, actual: '{}', expected: '{}'", path, actObject, expObject);
-        if (expObject == null) {
-            if (actObject != null) {
-                return matchFailed(path, actObject, expObject, "actual value is not null");
-            }
-            return AssertionResult.PASS; // both are null
-        }
-        if (expObject instanceof String) {
-            ScriptValue actValue = new ScriptValue(actObject);
-            return matchStringOrPattern(delimiter, path, matchType, actRoot, actValue, expObject.toString(), context);
-        } else if (expObject instanceof Map) {
-            if (!(actObject instanceof Map)) {
-                return matchFailed(path, actObject, expObject, "actual value is not of type 'map'");
-            }
-            Map<String, Object> expMap = (Map) expObject;
-            Map<String, Object> actMap = (Map) actObject;
-            if (matchType != MatchType.CONTAINS && actMap.size() > expMap.size()) { // > is because of the chance of #ignore
-                return matchFailed(path, actObject, expObject, "actual value has more keys than expected - " + actMap.size() + ":" + expMap.size());
-            }
-            for (Map.Entry<String, Object> expEntry : expMap.entrySet()) { // TDDO should we assert order, maybe XML needs this ?
-                String key = expEntry.getKey();
-                String childPath = path + delimiter + key;
-                AssertionResult ar = matchNestedObject(delimiter, childPath, MatchType.EQUALS, actRoot, actMap.get(key), expEntry.getValue(), context);
-                if (!ar.pass) {
-                    return ar;
-                }
-            }
-            return AssertionResult.PASS; // map compare done
-        } else if (expObject instanceof List) {
-            List expList = (List) expObject;
-            List actList = (List) actObject;
-            int actCount = actList.size();
-            int expCount = expList.size();
-            if (matchType != MatchType.CONTAINS && actCount != expCount) {
-                return matchFailed(path, actObject, expObject, "actual and expected arrays are not the same size - " + actCount + ":" + expCount);
-            }
-            if (matchType == MatchType.CONTAINS || matchType == MatchType.CONTAINS_ONLY) { // just checks for existence
-                for (Object expListObject : expList) { // for each expected item in the list
-                    boolean found = false;
-                    for (int i = 0; i < actCount; i++) {
-                        Object actListObject = actList.get(i);
-                        String listPath = buildListPath(delimiter, path, i);
-                        AssertionResult ar = matchNestedObject(delimiter, listPath, MatchType.EQUALS, actRoot, actListObject, expListObject, context);
-                        if (ar.pass) { // exact match, we found it
-                            found = true;
-                            break;
-                        }
-                    }
-                    if (!found) {
-                        return matchFailed(path + "[*]", actObject, expListObject, "actual value does not contain expected");
-                    }
-                }
-                return AssertionResult.PASS; // all items were found
-            } else { // exact compare of list elements and order
-                for (int i = 0; i < expCount; i++) {
-                    Object expListObject = expList.get(i);
-                    Object actListObject = actList.get(i);
-                    String listPath = buildListPath(delimiter, path, i);
-                    AssertionResult ar = matchNestedObject(delimiter, listPath, MatchType.EQUALS, actRoot, actListObject, expListObject, context);
-                    if (!ar.pass) {
-                        return matchFailed(listPath, actListObject, expListObject, "[" + ar.message + "]");
-                    }
-                }
-                return AssertionResult.PASS; // lists (and order) are identical
-            }
-        } else if (ClassUtils.isPrimitiveOrWrapper(expObject.getClass())) {
-            return matchPrimitive(path, actObject, expObject);
-        } else if (expObject instanceof BigDecimal) {
-            BigDecimal expNumber = (BigDecimal) expObject;
-            if (actObject instanceof BigDecimal) {
-                BigDecimal actNumber = (BigDecimal) actObject;
-                if (actNumber.compareTo(expNumber) != 0) {
-                    return matchFailed(path, actObject, expObject, "not equal (big decimal)");
-                }
-            } else {
-                BigDecimal actNumber = convertToBigDecimal(actObject);
-                if (actNumber == null || actNumber.compareTo(expNumber) != 0) {
-                    return matchFailed(path, actObject, expObject, "not equal (primitive : big decimal)");
-                }
-            }
-            return AssertionResult.PASS;
-        } else { // this should never happen
-            throw new RuntimeException("unexpected type: " + expObject.getClass());
-        }
-    }
-    
-    private static String buildListPath(char delimiter, String path, int index) {
-        int listIndex = delimiter == '/' ? index + 1 : index;
-        return path + "[" + listIndex + "]";        
+        return MatchPlan.compile(expObject, context).match(delimiter, path, matchType, actRoot, actObject, context);
     }
 
     private static BigDecimal convertToBigDecimal(Object o) {
+        if (o instanceof Number) {
+            BigDecimal number = toBigDecimal((Number) o);
+            if (number != null) {
+                return number;
+            }
+        }
         DecimalFormat df = new DecimalFormat();
         df.setParseBigDecimal(true);
         try {
@@ -845,33 +789,119 @@ public class Script {
     }
 
     private static AssertionResult matchPrimitive(String path, Object actObject, Object expObject) {
+        String reason = comparePrimitive(actObject, expObject);
+        return reason == null ? AssertionResult.PASS : matchFailed(path, actObject, expObject, reason);
+    }
+
+    /**
+     * @return null if equal, else the reason why not
+     */
+    protected static String comparePrimitive(Object actObject, Object expObject) {
         if (actObject == null) {
-            return matchFailed(path, actObject, expObject, "actual value is null");
+            return "actual value is null";
         }
         if (!expObject.getClass().equals(actObject.getClass())) {
             if (actObject instanceof BigDecimal) {
                 BigDecimal actNumber = (BigDecimal) actObject;
                 BigDecimal expNumber = convertToBigDecimal(expObject);
                 if (expNumber == null || expNumber.compareTo(actNumber) != 0) {
-                    return matchFailed(path, actObject, expObject, "not equal (big decimal : primitive)");
-                } else {
-                    return AssertionResult.PASS;
-                }
-            } else {
-                // types are not the same, use the JS engine for a lenient equality check
-                String exp = actObject + " == " + expObject;
-                ScriptValue sv = evalInNashorn(exp, null);
-                if (sv.isBooleanTrue()) {
-                    return AssertionResult.PASS;
-                } else {
-                    return matchFailed(path, actObject, expObject, "not equal");
+                    return "not equal (big decimal : primitive)";
                 }
+                return null;
+            }
+            // types are not the same, lenient like JS
+            return looseEquals(actObject, expObject) ? null : "not equal";
+        }
+        return expObject.equals(actObject) ? null : "not equal"; // primitives
+    }
+
+    /**
+     * @return null if equal, else the reason why not
+     */
+    protected static String compareBigDecimal(Object actObject, BigDecimal expNumber) {
+        if (actObject instanceof BigDecimal) {
+            BigDecimal actNumber = (BigDecimal) actObject;
+            return actNumber.compareTo(expNumber) == 0 ? null : "not equal (big decimal)";
+        }
+        BigDecimal actNumber = convertToBigDecimal(actObject);
+        return actNumber != null && actNumber.compareTo(expNumber) == 0 ? null : "not equal (primitive : big decimal)";
+    }
+
+    /**
+     * the JS '==' for numbers, booleans and strings, without going through the
+     * JS engine. a string is read the way it would be as JS source (which is how
+     * this used to be done), so "5" is 5, and "true" is true
+     */
+    public static boolean looseEquals(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof String) {
+            a = parseLiteral((String) a);
+        }
+        if (b instanceof String) {
+            b = parseLiteral((String) b);
+        }
+        if (a instanceof Boolean && b instanceof Number) {
+            a = (Boolean) a ? 1 : 0;
+        } else if (b instanceof Boolean && a instanceof Number) {
+            b = (Boolean) b ? 1 : 0;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            BigDecimal x = toBigDecimal((Number) a);
+            BigDecimal y = toBigDecimal((Number) b);
+            if (x == null || y == null) { // NaN or infinity
+                return ((Number) a).doubleValue() == ((Number) b).doubleValue();
             }
+            return x.compareTo(y) == 0;
         }
-        if (!expObject.equals(actObject)) {
-            return matchFailed(path, actObject, expObject, "not equal");
+        if (a instanceof Character) {
+            a = a.toString();
+        }
+        if (b instanceof Character) {
+            b = b.toString();
+        }
+        return a.equals(b);
+    }
+
+    private static Object parseLiteral(String s) {
+        String text = s.trim();
+        switch (text) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "":
+                return s;
+        }
+        char c = text.charAt(0);
+        if ((c < '0' || c > '9') && c != '-' && c != '+' && c != '.') {
+            return s;
+        }
+        try {
+            if (text.startsWith("0x") || text.startsWith("0X")) {
+                return new BigDecimal(new BigInteger(text.substring(2), 16));
+            }
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return s;
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Number n) {
+        if (n instanceof BigDecimal) {
+            return (BigDecimal) n;
+        } else if (n instanceof BigInteger) {
+            return new BigDecimal((BigInteger) n);
+        } else if (n instanceof Double || n instanceof Float) {
+            double d = n.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return null;
+            }
+            // the shortest text that is the same number, so that 0.1f and 0.1 are equal
+            return new BigDecimal(n.toString());
         } else {
-            return AssertionResult.PASS; // primitives, are equal
+            return BigDecimal.valueOf(n.longValue());
         }
     }
 
@@ -982,6 +1012,9 @@ public class Script {
         if (callArg instanceof List) { // JSON array
             List list = (List) callArg;
             int count = list.size();
+            if (context.callThreads > 1 && count > 1) {
+                return evalFeatureCallInParallel(feature, list, context);
+            }
             List result = new ArrayList(count);
             for (int i = 0; i < count; i++) {
                 Object rowArg = list.get(i);
@@ -1010,6 +1043,82 @@ public class Script {
         }
     }
 
+    private static final AtomicInteger CALL_THREAD_COUNT = new AtomicInteger();
+
+    // shared and re-used, so that each thread keeps its js engine across calls
+    private static final ExecutorService CALL_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "karate-call-" + CALL_THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static ScriptValue evalFeatureCallInParallel(FeatureWrapper feature, List list, ScriptContext context) {
+        int count = list.size();
+        for (int i = 0; i < count; i++) {
+            Object rowArg = list.get(i);
+            if (!(rowArg instanceof Map)) {
+                throw new RuntimeException("argument not json or map for feature call loop array position: " + i + ", " + rowArg);
+            }
+        }
+        // each row gets its own context, made on this thread which owns the values it copies
+        ScriptContext[] rowContexts = new ScriptContext[count];
+        for (int i = 0; i < count; i++) {
+            rowContexts[i] = context.copyForThread();
+        }
+        int threadCount = Math.min(context.callThreads, count);
+        logger.debug("feature call loop over {} items using {} threads", count, threadCount);
+        Object[] results = new Object[count];
+        Throwable[] errors = new Throwable[count];
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(threadCount);
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                futures.add(CALL_EXECUTOR.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                        ScriptContext rowContext = rowContexts[i];
+                        rowContexts[i] = null;
+                        try {
+                            rowContext.attach(); // to the js engine of this thread
+                            results[i] = evalFeatureCall(feature, rowContext, (Map) list.get(i)).getValue();
+                        } catch (Throwable error) {
+                            errors[i] = error;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KarateException("loop feature call interrupted", e);
+        } catch (ExecutionException e) { // not expected, each row catches its own errors
+            throw new KarateException("loop feature call failed", e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        List<Integer> failedIndexes = new ArrayList();
+        StringBuilder sb = new StringBuilder();
+        Throwable firstError = null;
+        for (int i = 0; i < count; i++) {
+            Throwable error = errors[i];
+            if (error != null) {
+                if (firstError == null) {
+                    firstError = error;
+                }
+                failedIndexes.add(i);
+                sb.append("\nindex: ").append(i).append(", arg: ").append(list.get(i)).append(", error: ").append(error.getMessage());
+            }
+        }
+        if (firstError != null) {
+            String message = "loop feature call failed, indexes: " + failedIndexes + ", items: " + count + sb;
+            throw new KarateException(message, firstError);
+        }
+        return new ScriptValue(new ArrayList(Arrays.asList(results)));
+    }
+
     private static ScriptValue evalFeatureCall(FeatureWrapper feature, ScriptContext context, Map<String, Object> callArg) {
         ScriptValueMap svm = CucumberUtils.call(feature, context, callArg);
         Map<String, Object> map = simplify(svm);
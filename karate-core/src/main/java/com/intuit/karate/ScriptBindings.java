@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.script.Bindings;
+
+/**
+ * a view over the script variables that only converts json / xml to java
+ * objects when the script actually refers to a variable, and then re-uses
+ * the result for the rest of the evaluation
+ *
+ * @author pthomas3
+ */
+public class ScriptBindings extends AbstractMap<String, Object> implements Bindings {
+
+    private final ScriptValueMap vars;
+    private final Map<String, Object> values = new HashMap<>(); // explicit puts and memoized conversions
+    private Set<String> removed;
+
+    public ScriptBindings(ScriptValueMap vars) {
+        this.vars = vars;
+    }
+
+    private boolean isRemoved(String key) {
+        return removed != null && removed.contains(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (values.containsKey(key)) {
+            return true;
+        }
+        return !isRemoved((String) key) && vars.get(key) != null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (values.containsKey(key)) {
+            return values.get(key);
+        }
+        String name = (String) key;
+        if (isRemoved(name)) {
+            return null;
+        }
+        ScriptValue sv = vars.get(name);
+        if (sv == null) {
+            return null;
+        }
+        Object value = sv.getAfterConvertingFromJsonOrXmlIfNeeded();
+        values.put(name, value);
+        return value;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        // does not return the un-converted variable it may shadow, not worth the conversion
+        return values.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Object previous = get(key);
+        values.remove(key);
+        if (vars.containsKey(key)) {
+            if (removed == null) {
+                removed = new HashSet<>();
+            }
+            removed.add((String) key);
+        }
+        return previous;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() { // forces conversion of everything, avoid
+        Map<String, Object> map = new LinkedHashMap<>(vars.size() + values.size());
+        for (String key : vars.keySet()) {
+            if (containsKey(key)) {
+                map.put(key, get(key));
+            }
+        }
+        map.putAll(values);
+        return map.entrySet();
+    }
+
+}
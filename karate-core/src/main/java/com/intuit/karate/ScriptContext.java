@@ -24,14 +24,16 @@
 package com.intuit.karate;
 
 import com.intuit.karate.validator.Validator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
+import javax.script.Bindings;
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.apache.commons.lang3.StringUtils;
-import org.glassfish.jersey.client.ClientProperties;
-import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,7 +47,7 @@ public class ScriptContext {
 
     public static final String KARATE_DOT_CONTEXT = "karate.context";
     public static final String KARATE_NAME = "karate";
-    private static final String VAR_READ = "read";
+    protected static final String VAR_READ = "read";
 
     protected final ScriptValueMap vars;
 
@@ -58,11 +60,22 @@ public class ScriptContext {
     private ScriptValue readFunction;
     private boolean sslEnabled = false;
     private String sslAlgorithm = "TLS";
-    private int readTimeout = -1;
-    private int connectTimeout = -1;
+    protected int readTimeout = -1;
+    protected int connectTimeout = -1;
     private String proxyUri;
     private String proxyUsername;
     private String proxyPassword;
+    private int poolMaxTotal = HttpClientPool.DEFAULT_MAX_TOTAL;
+    private int poolMaxPerHost = HttpClientPool.DEFAULT_MAX_PER_HOST;
+    private int poolIdleTimeout = HttpClientPool.DEFAULT_IDLE_TIMEOUT;
+    protected int logMaxBytes = LoggingFilter.DEFAULT_MAX_BYTES;
+    protected int callThreads = 1;
+    protected boolean matchEachParallel;
+    private List<String> configCache; // per-scenario keys, null if not enabled
+
+    // set by copyForThread(), until attach() re-creates the js functions
+    private Map<String, String> functionSources;
+    private String headersSource;
 
     // needed for 3rd party code
     public ScriptValueMap getVars() {
@@ -71,6 +84,10 @@ public class ScriptContext {
 
     public ScriptContext(ScriptEnv env, ScriptContext parent, Map<String, Object> arg) {
         this.env = env.refresh();
+        ConfigSnapshot snapshot = parent == null ? ConfigSnapshot.get(this.env) : null;
+        if (snapshot != null) {
+            parent = snapshot.context;
+        }
         if (parent != null) {
             vars = Script.clone(parent.vars);
             readFunction = parent.readFunction;
@@ -83,6 +100,12 @@ public class ScriptContext {
             proxyUri = parent.proxyUri;
             proxyUsername = parent.proxyUsername;
             proxyPassword = parent.proxyPassword;
+            poolMaxTotal = parent.poolMaxTotal;
+            poolMaxPerHost = parent.poolMaxPerHost;
+            poolIdleTimeout = parent.poolIdleTimeout;
+            logMaxBytes = parent.logMaxBytes;
+            callThreads = parent.callThreads;
+            matchEachParallel = parent.matchEachParallel;
             if (arg != null) {
                 for (Map.Entry<String, Object> entry : arg.entrySet()) {
                     vars.put(entry.getKey(), entry.getValue());
@@ -91,12 +114,20 @@ public class ScriptContext {
         } else {
             vars = new ScriptValueMap();
             validators = Script.getDefaultValidators();
-            readFunction = Script.eval(getFileReaderFunction(), this);
             try {
+                readFunction = Script.eval(getFileReaderFunction(), this);
                 Script.callAndUpdateVars("read('classpath:karate-config.js')", null, this);
             } catch (Exception e) {
                 logger.warn("start-up configuration failed, missing or bad 'karate-config.js'", e);
+            } finally {
+                snapshot = ConfigSnapshot.done(this, configCache);
             }
+            if (snapshot != null) { // even the context that evaluated the config starts from the snapshot
+                vars.inherit(snapshot.context.vars);
+            }
+        }
+        if (snapshot != null) {
+            initFromSnapshot(snapshot);
         }
         if (env.test) {
             logger.trace("karate init in test mode, http client disabled");
@@ -107,6 +138,24 @@ public class ScriptContext {
         buildClient();
     }
     
+    private void initFromSnapshot(ConfigSnapshot snapshot) {
+        readFunction = Script.eval(getFileReaderFunction(), this);
+        if (snapshot.headers != null) {
+            headers = Script.evalInNashorn(snapshot.headers, this);
+        } else {
+            headers = Script.copy(headers);
+        }
+        for (Map.Entry<String, String> entry : snapshot.functions.entrySet()) {
+            vars.put(entry.getKey(), Script.evalInNashorn(entry.getValue(), this));
+        }
+        for (String key : snapshot.perScenario) {
+            ScriptValue sv = vars.get(key);
+            if (sv != null && sv.getType() == ScriptValue.Type.JS_FUNCTION) {
+                vars.put(key, Script.evalFunctionCall(sv.getValue(ScriptObjectMirror.class), null, this));
+            }
+        }
+    }
+
     private static String getFileReaderFunction() {
         return "function(path) {\n"
                 + "  var FileUtils = Java.type('" + FileUtils.class.getCanonicalName() + "');\n"
@@ -129,19 +178,11 @@ public class ScriptContext {
             } else {
                 sslEnabled = value.isBooleanTrue();
             }
-            buildClient();
+            buildClient(); // clients are shared, so never mutate one, just look-up the matching one
         } else if (key.equals("connectTimeout")) {
-            connectTimeout = Integer.valueOf(value.getAsString());
-            if (client != null) {
-                client.property(ClientProperties.CONNECT_TIMEOUT, connectTimeout);
-            }
-            // lightweight operation, no need to re-build client
+            connectTimeout = Integer.valueOf(value.getAsString()); // passed per request
         } else if (key.equals("readTimeout")) {
             readTimeout = Integer.valueOf(value.getAsString());
-            if (client != null) {
-                client.property(ClientProperties.READ_TIMEOUT, readTimeout);
-            }
-            // lightweight operation, no need to re-build client
         } else if (key.equals("proxy")) {
             if (value.isString()) {
                 proxyUri = value.getAsString();
@@ -152,47 +193,106 @@ public class ScriptContext {
                 proxyPassword = (String) map.get("password");
             }
             buildClient();
+        } else if (key.equals("connectionPool")) {
+            Map<String, Object> map = (Map) value.getAfterConvertingFromJsonOrXmlIfNeeded();
+            poolMaxTotal = getAsInt(map, "maxTotal", poolMaxTotal);
+            poolMaxPerHost = getAsInt(map, "maxPerHost", poolMaxPerHost);
+            poolIdleTimeout = getAsInt(map, "idleTimeout", poolIdleTimeout);
+            buildClient();
+        } else if (key.equals("logMaxBytes")) {
+            logMaxBytes = LoggingFilter.validateMaxBytes(Integer.valueOf(value.getAsString()));
+        } else if (key.equals("callThreads")) {
+            callThreads = Integer.valueOf(value.getAsString());
+        } else if (key.equals("matchEachParallel")) {
+            matchEachParallel = value.isBooleanTrue();
+        } else if (key.equals("configCache")) { // only has an effect within karate-config.js
+            Object o = value.getAfterConvertingFromJsonOrXmlIfNeeded();
+            if (o instanceof ScriptObjectMirror) { // js array
+                o = ((ScriptObjectMirror) o).values();
+            }
+            if (o instanceof Collection) {
+                configCache = new ArrayList<>();
+                for (Object item : (Collection) o) {
+                    configCache.add(item.toString());
+                }
+            } else {
+                configCache = value.isBooleanTrue() ? Collections.emptyList() : null;
+            }
         } else {
             throw new RuntimeException("unexpected 'configure' key: '" + key + "'");
         }
     }
 
+    private static int getAsInt(Map<String, Object> map, String key, int defaultValue) {
+        Object o = map.get(key);
+        return o == null ? defaultValue : Integer.valueOf(o.toString());
+    }
+
     public void buildClient() {
-        ClientBuilder clientBuilder = ClientBuilder.newBuilder()
-                .register(new LoggingFilter()) // must be first
-                .register(MultiPartFeature.class)        
-                .register(new RequestFilter());
-        if (sslEnabled) {
-            logger.info("ssl enabled, initializing generic trusted certificate / key-store with algorithm: {}", sslAlgorithm);
-            SSLContext ssl = SslUtils.getSslContext(sslAlgorithm);
-            HttpsURLConnection.setDefaultSSLSocketFactory(ssl.getSocketFactory());
-            clientBuilder.sslContext(ssl);
-            clientBuilder.hostnameVerifier((host, session) -> true);
+        HttpClientPool.Config config = new HttpClientPool.Config(sslEnabled, sslEnabled ? sslAlgorithm : null,
+                proxyUri, proxyUsername, proxyPassword,
+                poolMaxTotal, poolMaxPerHost, poolIdleTimeout);
+        client = HttpClientPool.getClient(config);
+    }
+    
+    /**
+     * a copy for use on another thread, call this on the thread that owns this
+     * context and then attach() on the thread that will use the copy, values
+     * that are not safe to copy from several threads at once (xml and js) are
+     * copied here, js functions are re-created by attach() from their source
+     */
+    protected ScriptContext copyForThread() {
+        ScriptContext copy = new ScriptContext(env, this, null);
+        copy.functionSources = new HashMap<>();
+        for (Map.Entry<String, ScriptValue> entry : vars.rawEntrySet()) {
+            ScriptValue sv = entry.getValue();
+            if (sv == null) {
+                continue;
+            }
+            switch (sv.getType()) {
+                case JS_FUNCTION:
+                    copy.functionSources.put(entry.getKey(), sv.getValue(ScriptObjectMirror.class).toString());
+                    break;
+                case XML:
+                case JS_OBJECT:
+                case JS_ARRAY:
+                    copy.vars.get(entry.getKey()); // copy-on-read, now
+                    break;
+                default:
+            }
         }
-        client = clientBuilder.build();
-        if (connectTimeout != -1) {
-            client.property(ClientProperties.CONNECT_TIMEOUT, connectTimeout);
+        if (headers != null && headers.getType() == ScriptValue.Type.JS_FUNCTION) {
+            copy.headersSource = headers.getValue(ScriptObjectMirror.class).toString();
         }
-        if (readTimeout != -1) {
-            client.property(ClientProperties.READ_TIMEOUT, readTimeout);
+        return copy;
+    }
+
+    /**
+     * binds a copy made by copyForThread() to the js engine of this thread
+     */
+    protected void attach() {
+        if (readFunction != null) {
+            readFunction = Script.eval(getFileReaderFunction(), this);
         }
-        if (proxyUri != null) {
-            client.property(ClientProperties.PROXY_URI, proxyUri);
+        if (headersSource != null) {
+            headers = Script.evalInNashorn(headersSource, this);
+            headersSource = null;
         }
-        if (proxyUsername != null) {
-            client.property(ClientProperties.PROXY_USERNAME, proxyUsername);
+        if (functionSources != null) {
+            for (Map.Entry<String, String> entry : functionSources.entrySet()) {
+                vars.put(entry.getKey(), Script.evalInNashorn(entry.getValue(), this));
+            }
+            functionSources = null;
         }
-        if (proxyPassword != null) {
-            client.property(ClientProperties.PROXY_PASSWORD, proxyPassword);
-        }        
     }
-    
-    public Map<String, Object> getVariableBindings() {
-        Map<String, Object> map = Script.simplify(vars);
+
+    public Bindings getVariableBindings() {
+        Bindings bindings = new ScriptBindings(vars);
         if (readFunction != null) {
-            map.put(VAR_READ, readFunction.getValue());
-        }        
-        return map;
+            bindings.put(VAR_READ, readFunction.getValue());
+        }
+        bindings.put(KARATE_NAME, new ScriptBridge(this));
+        return bindings;
     }
 
 }
@@ -41,13 +41,20 @@ public class ScriptEnv {
     public final File featureDir;
     public final String featureName;
     public final ClassLoader fileClassLoader;    
+    public final RequestStats requestStats; // if not null, every http request is timed into this
     
     public ScriptEnv(boolean test, String env, File featureDir, String featureName, ClassLoader fileClassLoader) {
+        this(test, env, featureDir, featureName, fileClassLoader, null);
+    }
+    
+    public ScriptEnv(boolean test, String env, File featureDir, String featureName, ClassLoader fileClassLoader,
+            RequestStats requestStats) {
         this.env = env;
         this.test = test;
         this.featureDir = featureDir;
         this.featureName = featureName;
         this.fileClassLoader = fileClassLoader;
+        this.requestStats = requestStats;
     }
     
     public String getFeaturePath() {
@@ -70,7 +77,7 @@ public class ScriptEnv {
                 logger.debug("obtained 'karate.env' from system properties: {}", karateEnv);
             }
         }
-        return new ScriptEnv(test, karateEnv, featureDir, featureName, fileClassLoader);
+        return new ScriptEnv(test, karateEnv, featureDir, featureName, fileClassLoader, requestStats);
     }
 
     @Override
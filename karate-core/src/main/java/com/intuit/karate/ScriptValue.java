@@ -185,7 +185,7 @@ public class ScriptValue {
             type = Type.XML;
         } else if (value instanceof List) {
             type = Type.LIST;
-        } else if (value.getClass().getName().equals(BsonDocument.class.getName())){
+        } else if (value instanceof BsonDocument) {
             type = Type.BSON_DOCUMENT;
         }else if (value instanceof Map) {
             if (value instanceof ScriptObjectMirror) {
@@ -1,22 +1,93 @@
 package com.intuit.karate;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 /**
+ * copy-on-write, so that a context can be forked (for a call or a loop row)
+ * without copying all the variables up-front
  *
  * @author pthomas3
  */
-public class ScriptValueMap extends HashMap<String, ScriptValue> {
+public class ScriptValueMap extends AbstractMap<String, ScriptValue> {
 
     public static final String VAR_RESPONSE = "response";
     public static final String VAR_COOKIES = "cookies";
     public static final String VAR_RESPONSE_HEADERS = "responseHeaders";
     public static final String VAR_RESPONSE_STATUS = "responseStatus";
-    public static final String VAR_RESPONSE_TIME = "responseTime";        
+    public static final String VAR_RESPONSE_TIME = "responseTime";
+    public static final String VAR_REQUEST_HANDLE = "requestHandle";        
 
-    public ScriptValue put(String key, Object value) {
-        ScriptValue sv = new ScriptValue(value);
-        return super.put(key, sv);
+    private Map<String, ScriptValue> map = new HashMap<>();
+    private volatile boolean shared; // map is also referenced by a copy, so never write to it
+    private Set<String> owned; // null if all the values belong to this map, else the keys that do
+
+    /**
+     * O(1), the copy reads the entries of this map until either side writes,
+     * and a mutable value (json, xml, map or list) is deep-copied the first
+     * time the copy reads it, so changes made via the copy never leak back
+     */
+    public ScriptValueMap copy() {
+        ScriptValueMap copy = new ScriptValueMap();
+        copy.inherit(this);
+        return copy;
+    }
+
+    /**
+     * replaces all entries with those of the parent, as if this were a copy
+     */
+    public void inherit(ScriptValueMap parent) {
+        parent.shared = true;
+        map = parent.map;
+        shared = true;
+        owned = new HashSet<>();
+    }
+
+    private Map<String, ScriptValue> writable() {
+        if (shared) {
+            map = new HashMap<>(map);
+            shared = false;
+        }
+        return map;
+    }
+
+    private static boolean isMutable(ScriptValue sv) {
+        switch (sv.getType()) {
+            case JSON:
+            case XML:
+            case MAP:
+            case LIST:
+            case BSON_DOCUMENT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public ScriptValue get(Object key) {
+        ScriptValue sv = map.get(key);
+        if (sv == null || owned == null || !isMutable(sv) || owned.contains(key)) {
+            return sv;
+        }
+        sv = Script.copy(sv);
+        put((String) key, sv);
+        return sv;
+    }
+
+    /**
+     * the entries as they are, inherited values are not copied on read, so
+     * only for callers that neither change the values nor keep them beyond
+     * the lifetime of the parent, such as the result of a feature call
+     */
+    protected Set<Entry<String, ScriptValue>> rawEntrySet() {
+        return Collections.unmodifiableMap(map).entrySet();
     }
 
     public <T> T get(String key, Class<T> clazz) {
@@ -27,4 +98,149 @@ public class ScriptValueMap extends HashMap<String, ScriptValue> {
         return sv.getValue(clazz);
     }
 
+    @Override
+    public ScriptValue put(String key, ScriptValue value) {
+        if (owned != null) {
+            owned.add(key);
+        }
+        return writable().put(key, value);
+    }
+
+    public ScriptValue put(String key, Object value) {
+        ScriptValue sv = new ScriptValue(value);
+        return put(key, sv);
+    }
+
+    @Override
+    public ScriptValue remove(Object key) {
+        if (!map.containsKey(key)) {
+            return null;
+        }
+        if (owned != null) {
+            owned.remove(key);
+        }
+        return writable().remove(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public void clear() {
+        map = new HashMap<>();
+        shared = false;
+        owned = null;
+    }
+
+    /**
+     * a view, removing a key removes it from this map
+     */
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new ViewIterator<String>() {
+                    @Override
+                    protected String next(String key) {
+                        return key;
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!containsKey(o)) {
+                    return false;
+                }
+                ScriptValueMap.this.remove(o);
+                return true;
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    /**
+     * a view that reads the values the same way as get() so inherited values
+     * are copied on read, the map is only copied if an entry is set or removed
+     */
+    @Override
+    public Set<Entry<String, ScriptValue>> entrySet() {
+        return new AbstractSet<Entry<String, ScriptValue>>() {
+            @Override
+            public Iterator<Entry<String, ScriptValue>> iterator() {
+                return new ViewIterator<Entry<String, ScriptValue>>() {
+                    @Override
+                    protected Entry<String, ScriptValue> next(String key) {
+                        return new SimpleEntry<String, ScriptValue>(key, get(key)) {
+                            @Override
+                            public ScriptValue setValue(ScriptValue value) {
+                                put(key, value);
+                                return super.setValue(value);
+                            }
+                        };
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    private abstract class ViewIterator<T> implements Iterator<T> {
+
+        private final Map<String, ScriptValue> source = map;
+        private final Iterator<String> keys = source.keySet().iterator();
+        private String current;
+
+        protected abstract T next(String key);
+
+        @Override
+        public boolean hasNext() {
+            return keys.hasNext();
+        }
+
+        @Override
+        public T next() {
+            current = keys.next();
+            return next(current);
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (!shared && map == source) { // not copied since this iterator was created
+                keys.remove();
+                if (owned != null) {
+                    owned.remove(current);
+                }
+            } else { // source is shared or stale, keep iterating it as is
+                ScriptValueMap.this.remove(current);
+            }
+            current = null;
+        }
+
+    }
+
 }
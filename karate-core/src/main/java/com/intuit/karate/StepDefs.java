@@ -31,9 +31,10 @@ import cucumber.api.java.en.Given;
 import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +49,8 @@ import javax.ws.rs.core.NewCookie;
 import javax.ws.rs.core.Response;
 import org.apache.commons.lang3.StringUtils;
 import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.media.multipart.BodyPart;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.MultiPart;
@@ -86,6 +89,8 @@ public class StepDefs {
     }
 
     private String url;
+    private String urlTemplate; // the url with non-literal path segments as {expression}, to group timings
+    private String baseUrlTemplate; // of the url alone, without the path
     private WebTarget target;
     private Response response;
     private long startTime;
@@ -117,9 +122,27 @@ public class StepDefs {
     public void url(String expression) {
         String temp = Script.eval(expression, context).getAsString();
         this.url = temp;
+        expression = StringUtils.trim(expression);
+        // e.g. baseUrl + '/cats/' + id would be a new key for every request
+        baseUrlTemplate = isStringLiteral(expression) || Script.isVariable(expression) ? temp : "{" + expression + "}";
+        urlTemplate = baseUrlTemplate;
         target = context.client.target(temp);
     }
 
+    private Invocation.Builder newRequest() {
+        Invocation.Builder builder = target.request();
+        builder.property(ScriptContext.KARATE_DOT_CONTEXT, context);
+        builder.property(LoggingFilter.MAX_BYTES_KEY, context.logMaxBytes);
+        // per request, so that a timeout does not need a client (and connection pool) of its own
+        if (context.connectTimeout != -1) {
+            builder.property(ClientProperties.CONNECT_TIMEOUT, context.connectTimeout);
+        }
+        if (context.readTimeout != -1) {
+            builder.property(ClientProperties.READ_TIMEOUT, context.readTimeout);
+        }
+        return builder;
+    }
+
     private void hasUrlBeenSet() {
         if (target == null) {
             throw new RuntimeException("url not set, please refer to the syntax for 'url'");
@@ -132,7 +155,24 @@ public class StepDefs {
         for (String path : paths) {
             String temp = Script.eval(path, context).getAsString();
             target = target.path(temp);
+            path = StringUtils.trim(path);
+            urlTemplate = appendPath(urlTemplate, isStringLiteral(path) ? temp : "{" + path + "}");
+        }
+    }
+
+    private static boolean isStringLiteral(String exp) { // so not 'cats/' + id
+        if (exp.length() < 2 || !Script.isQuoted(exp)) {
+            return false;
+        }
+        char quote = exp.charAt(0);
+        return exp.indexOf(quote, 1) == exp.length() - 1;
+    }
+
+    private static String appendPath(String base, String path) {
+        if (base.endsWith("/")) {
+            return path.startsWith("/") ? base + path.substring(1) : base + path;
         }
+        return path.startsWith("/") ? base + path : base + "/" + path;
     }
 
     @When("^param ([^\\s]+) = (.+)")
@@ -236,8 +276,7 @@ public class StepDefs {
 
     private Invocation.Builder prepare() {
         hasUrlBeenSet();
-        Invocation.Builder builder = target.request();
-        builder.property(ScriptContext.KARATE_DOT_CONTEXT, context);
+        Invocation.Builder builder = newRequest();
         if (headers != null) {
             for (Map.Entry<String, Object> entry : headers.entrySet()) {
                 builder = builder.header(entry.getKey(), entry.getValue());
@@ -264,6 +303,8 @@ public class StepDefs {
 
     private void makeHttpRequest(Invocation.Builder builder, String method, Entity entity) {
         startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        RequestStats stats = context.env.requestStats;
         try {
             if (entity != null) {
                 response = builder.method(method, entity);
@@ -273,28 +314,33 @@ public class StepDefs {
         } catch (Exception e) {
             long endTime = System.currentTimeMillis();
             long responseTime = endTime - startTime;
+            if (stats != null) {
+                stats.recordError(RequestStats.getKey(method, urlTemplate));
+            }
             String message = "http call failed after " + responseTime + " milliseconds for URL: " + target.getUri();
             logger.error(e.getMessage() + ", " + message);
             throw new KarateException(message, e);
         }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (stats != null) {
+            stats.record(RequestStats.getKey(method, urlTemplate), elapsedNanos);
+        }
         long endTime = System.currentTimeMillis();
         long responseTime = endTime - startTime;
         logger.debug("response time in milliseconds: {}", responseTime);
         context.vars.put(ScriptValueMap.VAR_RESPONSE_TIME, responseTime);
     }
 
-    @When("^method (\\w+)")
-    public void method(String method) {
-        method = method.toUpperCase();
+    private Entity getEntity(String method) {
         if ("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method)) {
             if (multiPart != null) {
                 String mediaType = getUserSpecifiedContentType();
                 if (mediaType == null) {
                     mediaType = MediaType.MULTIPART_FORM_DATA;
                 }
-                makeHttpRequest(prepare(), method, Entity.entity(multiPart, mediaType));
+                return Entity.entity(multiPart, mediaType);
             } else if (formFields != null) {
-                makeHttpRequest(prepare(), method, Entity.entity(formFields, MediaType.APPLICATION_FORM_URLENCODED_TYPE));
+                return Entity.entity(formFields, MediaType.APPLICATION_FORM_URLENCODED_TYPE);
             } else {
                 if (request == null || request.isNull()) {
                     String msg = "request body is requred for a " + method + ", please use the 'request' keyword";
@@ -326,11 +372,12 @@ public class StepDefs {
                         break;
                     case BSON_DOCUMENT:
                         BsonDocument bson = request.getValue(BsonDocument.class);
-                        ByteArrayInputStream byteStream = new ByteArrayInputStream(BsonUtils.toByteArray(bson));
                         if (mediaType == null) {
                             mediaType = MediaType.APPLICATION_OCTET_STREAM;
                         }
-                        entity = Entity.entity(byteStream, mediaType);
+                        // the pooled client buffers request bodies (to send a content-length)
+                        // so the connector still makes one copy of these bytes, see BsonRequestBenchmark
+                        entity = Entity.entity(BsonUtils.toInputStream(bson), mediaType);
                         useBson = true;
                         break;
                     default:
@@ -339,15 +386,76 @@ public class StepDefs {
                         }
                         entity = Entity.entity(request.getAsString(), mediaType);
                 }
-                makeHttpRequest(prepare(), method, entity);
+                return entity;
             }
         } else {
-            makeHttpRequest(prepare(), method, null);
+            return null;
+        }
+    }
+
+    @When("^method (\\w+)$")
+    public void method(String method) {
+        method = method.toUpperCase();
+        Entity entity = getEntity(method);
+        makeHttpRequest(prepare(), method, entity);
+        unprepare(response, useBson);
+        resetRequest();
+    }
+
+    @When("^method (\\w+) async$")
+    public void methodAsync(String method) {
+        method = method.toUpperCase();
+        Entity entity = getEntity(method);
+        Invocation.Builder builder = prepare();
+        // the headers function is js, evaluate it here and not on the async thread
+        Map<String, Object> headers = RequestFilter.resolveHeaders(context);
+        // never null, so that the filter knows the headers were resolved and does not evaluate them again
+        builder.property(RequestFilter.KARATE_DOT_HEADERS, headers == null ? Collections.emptyMap() : headers);
+        PendingResponse pending = new PendingResponse(RequestStats.getKey(method, urlTemplate), target.getUri(), useBson);
+        if (entity != null) {
+            pending.setFuture(builder.async().method(method, entity, pending));
+        } else {
+            pending.setFuture(builder.async().method(method, pending));
         }
-        unprepare();
+        logger.debug("async request sent: {} {}", method, pending.getUri());
+        context.vars.put(ScriptValueMap.VAR_REQUEST_HANDLE, pending);
+        resetRequest();
     }
 
-    private void unprepare() {
+    @When("^await( .+)?")
+    public void await(String exp) {
+        ScriptValue sv;
+        if (exp == null) {
+            sv = context.vars.get(ScriptValueMap.VAR_REQUEST_HANDLE);
+        } else {
+            sv = Script.eval(exp, context);
+        }
+        if (sv == null || !(sv.getValue() instanceof PendingResponse)) {
+            String msg = "not a pending async request: " + (exp == null ? ScriptValueMap.VAR_REQUEST_HANDLE : exp.trim());
+            logger.error(msg);
+            throw new RuntimeException(msg);
+        }
+        PendingResponse pending = sv.getValue(PendingResponse.class);
+        RequestStats stats = context.env.requestStats;
+        String key = pending.getRequestKey();
+        try {
+            response = pending.await();
+        } catch (KarateException e) {
+            if (stats != null) {
+                stats.recordError(key);
+            }
+            throw e;
+        }
+        if (stats != null) {
+            stats.record(key, pending.getResponseTimeNanos());
+        }
+        long responseTime = pending.getResponseTime();
+        logger.debug("async response time in milliseconds: {}", responseTime);
+        context.vars.put(ScriptValueMap.VAR_RESPONSE_TIME, responseTime);
+        unprepare(response, pending.isUseBson());
+    }
+
+    private void unprepare(Response response, boolean useBson) {
         context.vars.put(ScriptValueMap.VAR_RESPONSE_STATUS, response.getStatus());
         for (Map.Entry<String, NewCookie> entry : response.getCookies().entrySet()) {
             String key = entry.getKey();
@@ -356,17 +464,22 @@ public class StepDefs {
             logger.trace("set cookie: {} - {}", key, entry.getValue());
         }
         DocumentContext headers = JsonPath.parse(response.getHeaders());
-        logger.trace("set response headers: {}", headers.jsonString());
+        if (logger.isTraceEnabled()) {
+            logger.trace("set response headers: {}", headers.jsonString());
+        }
         context.vars.put(ScriptValueMap.VAR_RESPONSE_HEADERS, headers);
-        BsonDocument bson = null;
-        if(useBson && headers.jsonString().contains(MediaType.APPLICATION_OCTET_STREAM)){
+        RawBsonDocument bson = null;
+        String rawResponse;
+        if (isBson(response.getMediaType(), useBson)) {
             byte[] bytes = response.readEntity(byte[].class);
-            bson = BsonUtils.fromByteArray(bytes);
+            bson = BsonUtils.wrapRawBson(bytes);
+            rawResponse = bson == null ? new String(bytes, StandardCharsets.UTF_8) : null;
+        } else {
+            rawResponse = response.readEntity(String.class);
         }
-        if(bson != null){
-            context.vars.put(ScriptValueMap.VAR_RESPONSE, BsonUtils.bsonToJson(bson));
-        }else {
-            String rawResponse = response.readEntity(String.class);
+        if (bson != null) { // decoded only as far as the test looks into it
+            context.vars.put(ScriptValueMap.VAR_RESPONSE, new BsonMap(bson));
+        } else {
             if (Script.isJson(rawResponse)) {
                 context.vars.put(ScriptValueMap.VAR_RESPONSE, JsonUtils.toJsonDoc(rawResponse));
             } else if (Script.isXml(rawResponse)) {
@@ -380,8 +493,21 @@ public class StepDefs {
                 context.vars.put(ScriptValueMap.VAR_RESPONSE, rawResponse);
             }
         }
+    }
+
+    // application/bson (or x-bson, +bson), or octet-stream if the request was bson
+    private static boolean isBson(MediaType mediaType, boolean useBson) {
+        if (mediaType == null) {
+            return false;
+        }
+        return mediaType.getSubtype().endsWith("bson")
+                || useBson && mediaType.isCompatible(MediaType.APPLICATION_OCTET_STREAM_TYPE);
+    }
+
+    private void resetRequest() {
         // reset url and some state
         target = context.client.target(url);
+        urlTemplate = baseUrlTemplate;
         formFields = null;
         multiPart = null;
         request = null;
@@ -410,8 +536,7 @@ public class StepDefs {
             default:
                 xml = request.getAsString();
         }
-        Invocation.Builder builder = target.request();
-        builder.property(ScriptContext.KARATE_DOT_CONTEXT, context);
+        Invocation.Builder builder = newRequest();
         builder.header("SOAPAction", action);
         makeHttpRequest(builder, "POST", Entity.entity(xml, MediaType.TEXT_XML));
         String rawResponse = response.readEntity(String.class);
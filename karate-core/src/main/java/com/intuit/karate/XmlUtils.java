@@ -64,11 +64,32 @@ public class XmlUtils {
         // only static methods
     }
 
+    // the factory look-ups are expensive and the factories are not thread-safe, so one per thread
+    private static final ThreadLocal<DocumentBuilderFactory> DOCUMENT_BUILDER_FACTORY
+            = ThreadLocal.withInitial(DocumentBuilderFactory::newInstance);
+
+    private static final ThreadLocal<TransformerFactory> TRANSFORMER_FACTORY
+            = ThreadLocal.withInitial(TransformerFactory::newInstance);
+
+    private static final ThreadLocal<XPath> XPATH
+            = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+    private static final int XPATH_CACHE_MAX_SIZE = 500;
+
+    // compiled xpath expressions are not thread-safe either
+    private static final ThreadLocal<Map<String, XPathExpression>> XPATH_CACHE = ThreadLocal.withInitial(()
+            -> new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+            return size() > XPATH_CACHE_MAX_SIZE;
+        }
+    });
+
     public static String toString(Node node) {
         DOMSource domSource = new DOMSource(node);
         StringWriter writer = new StringWriter();
         StreamResult result = new StreamResult(writer);
-        TransformerFactory tf = TransformerFactory.newInstance();
+        TransformerFactory tf = TRANSFORMER_FACTORY.get();
         try {
             Transformer transformer = tf.newTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
@@ -80,7 +101,7 @@ public class XmlUtils {
     }
 
     public static Document toXmlDoc(String xml) {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        DocumentBuilderFactory factory = DOCUMENT_BUILDER_FACTORY.get();
         try {
             DocumentBuilder builder = factory.newDocumentBuilder();
             InputStream is = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
@@ -91,13 +112,18 @@ public class XmlUtils {
     }
 
     private static XPathExpression compile(String path) {
-        XPathFactory xPathfactory = XPathFactory.newInstance();
-        XPath xpath = xPathfactory.newXPath();
+        Map<String, XPathExpression> cache = XPATH_CACHE.get();
+        XPathExpression expr = cache.get(path);
+        if (expr != null) {
+            return expr;
+        }
         try {
-            return xpath.compile(path);
+            expr = XPATH.get().compile(path);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        cache.put(path, expr);
+        return expr;
     }
 
     public static Node getNodeByPath(Node node, String path) {
@@ -247,7 +273,7 @@ public class XmlUtils {
     }
     
     public static Document newDocument() {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        DocumentBuilderFactory factory = DOCUMENT_BUILDER_FACTORY.get();
         DocumentBuilder builder;
         try {
             builder = factory.newDocumentBuilder();
@@ -23,6 +23,7 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.RequestStats;
 import com.intuit.karate.ScriptEnv;
 import cucumber.runtime.Backend;
 import cucumber.runtime.Runtime;
@@ -30,12 +31,16 @@ import cucumber.runtime.RuntimeGlue;
 import cucumber.runtime.RuntimeOptions;
 import cucumber.runtime.RuntimeOptionsFactory;
 import cucumber.runtime.StopWatch;
-import cucumber.runtime.UndefinedStepsTracker;
 import cucumber.runtime.io.MultiLoader;
 import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.model.CucumberExamples;
 import cucumber.runtime.model.CucumberFeature;
-import cucumber.runtime.xstream.LocalizedXStreams;
+import cucumber.runtime.model.CucumberScenario;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
 import gherkin.formatter.Formatter;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Tag;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
@@ -57,6 +62,8 @@ public class CucumberRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(CucumberRunner.class);
 
+    public static final String PARALLEL_FALSE_TAG = "@parallel=false";
+
     private final ClassLoader classLoader;
     private final RuntimeOptions runtimeOptions;
     private final ResourceLoader resourceLoader;
@@ -112,6 +119,10 @@ public class CucumberRunner {
     }
 
     public Runtime getRuntime(FeatureFile featureFile) {
+        return getRuntime(featureFile, null);
+    }
+
+    public Runtime getRuntime(FeatureFile featureFile, RequestStats requestStats) {
         File packageFile = featureFile.file;
         String featurePath;
         if (packageFile.exists()) { // loaded by karate
@@ -122,9 +133,9 @@ public class CucumberRunner {
         }
         logger.debug("loading feature: {}", featurePath);
         File featureDir = new File(featurePath).getParentFile();
-        ScriptEnv env = new ScriptEnv(false, null, featureDir, packageFile.getName(), classLoader);
+        ScriptEnv env = new ScriptEnv(false, null, featureDir, packageFile.getName(), classLoader, requestStats);
         Backend backend = new KarateBackend(env, null, null);
-        RuntimeGlue glue = new RuntimeGlue(new UndefinedStepsTracker(), new LocalizedXStreams(classLoader));
+        RuntimeGlue glue = CucumberUtils.createGlue(classLoader);
         return new Runtime(resourceLoader, classLoader, Collections.singletonList(backend), runtimeOptions, StopWatch.SYSTEM, glue);
     }
 
@@ -146,13 +157,7 @@ public class CucumberRunner {
         }
     }
 
-    private static KarateJunitFormatter getFormatter(String reportDirPath, FeatureFile featureFile) {
-        File reportDir = new File(reportDirPath);
-        try {
-            FileUtils.forceMkdirParent(reportDir);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    private static String getFeaturePackagePath(FeatureFile featureFile) {
         String featurePath = featureFile.feature.getPath();
         if (featurePath == null) {
             featurePath = featureFile.file.getPath();
@@ -162,44 +167,151 @@ public class CucumberRunner {
         if (featurePackagePath.endsWith(".feature")) {
             featurePackagePath = featurePackagePath.substring(0, featurePackagePath.length() - 8);
         }
+        return featurePackagePath;
+    }
+
+    private static String getReportPath(String reportDirPath, String featurePackagePath) {
+        File reportDir = new File(reportDirPath);
+        try {
+            FileUtils.forceMkdirParent(reportDir);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return reportDir.getPath() + File.separator + "TEST-" + featurePackagePath + ".xml";
+    }
+
+    private static KarateJunitFormatter getFormatter(String reportDirPath, FeatureFile featureFile) {
+        String featurePackagePath = getFeaturePackagePath(featureFile);
+        try {
+            return new KarateJunitFormatter(featurePackagePath, getReportPath(reportDirPath, featurePackagePath));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isParallelDisabled(List<Tag> tags) {
+        if (tags != null) {
+            for (Tag tag : tags) {
+                if (PARALLEL_FALSE_TAG.equals(tag.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * splits a feature into the smallest units that can run independently,
+     * one per scenario and one per scenario outline example row - unless the
+     * feature or any of its scenarios is tagged with @parallel=false
+     */
+    protected static List<ScenarioUnit> getScenarioUnits(FeatureFile featureFile) {
+        List<ScenarioUnit> units = new ArrayList<>();
+        List<CucumberTagStatement> statements = featureFile.feature.getFeatureElements();
+        boolean sequential = isParallelDisabled(featureFile.feature.getGherkinFeature().getTags());
+        for (CucumberTagStatement statement : statements) {
+            if (sequential) {
+                break;
+            }
+            sequential = isParallelDisabled(statement.getGherkinModel().getTags());
+        }
+        if (sequential) {
+            units.add(new ScenarioUnit(featureFile, null, null, 0, 0));
+            return units;
+        }
+        int scenarioNumber = 0;
+        for (CucumberTagStatement statement : statements) {
+            scenarioNumber++;
+            if (statement instanceof CucumberScenarioOutline) {
+                CucumberScenarioOutline outline = (CucumberScenarioOutline) statement;
+                ScenarioOutline model = (ScenarioOutline) outline.getGherkinModel();
+                int exampleNumber = 0;
+                for (CucumberExamples examples : outline.getCucumberExamplesList()) {
+                    for (CucumberScenario scenario : examples.createExampleScenarios()) {
+                        units.add(new ScenarioUnit(featureFile, scenario, model, scenarioNumber, exampleNumber++));
+                    }
+                }
+            } else {
+                units.add(new ScenarioUnit(featureFile, statement, null, scenarioNumber, 0));
+            }
+        }
+        return units;
+    }
+
+    protected KarateJunitFormatter run(ScenarioUnit unit) {
+        return run(unit, null);
+    }
+
+    protected KarateJunitFormatter run(ScenarioUnit unit, RequestStats requestStats) {
+        FeatureFile featureFile = unit.featureFile;
+        KarateJunitFormatter formatter;
         try {
-            reportDirPath = reportDir.getPath() + File.separator;
-            String reportPath = reportDirPath + "TEST-" + featurePackagePath + ".xml";
-            return new KarateJunitFormatter(featurePackagePath, reportPath);
+            formatter = new KarateJunitFormatter(getFeaturePackagePath(featureFile), null);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        Runtime runtime = getRuntime(featureFile, requestStats);
+        if (unit.statement == null) {
+            featureFile.feature.run(formatter, formatter, runtime);
+        } else if (unit.outline != null) {
+            formatter.feature(featureFile.feature.getGherkinFeature());
+            formatter.scenarioOutline(unit.outline);
+            formatter.resume(unit.scenarioNumber, unit.exampleNumber);
+            unit.statement.run(formatter, formatter, runtime);
+        } else {
+            formatter.feature(featureFile.feature.getGherkinFeature());
+            formatter.resume(unit.scenarioNumber - 1, 0);
+            unit.statement.run(formatter, formatter, runtime);
+        }
+        return formatter;
     }
-    
+
     public static KarateStats parallel(Class clazz, int threadCount) {
         return parallel(clazz, threadCount, "target/surefire-reports");
     }
 
     public static KarateStats parallel(Class clazz, int threadCount, String reportDir) {
         KarateStats stats = KarateStats.startTimer();
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        ExecutorService executor = Executors.newWorkStealingPool(threadCount);
         CucumberRunner runner = new CucumberRunner(clazz);
         List<FeatureFile> featureFiles = runner.getFeatureFiles();
-        List<Callable<KarateJunitFormatter>> callables = new ArrayList<>(featureFiles.size());
-        int count = featureFiles.size();
-        for (int i = 0; i < count; i++) {
-            int index = i + 1;
-            FeatureFile featureFile = featureFiles.get(i);
-            callables.add(() -> {
-                String threadName = Thread.currentThread().getName();
-                KarateJunitFormatter formatter = getFormatter(reportDir, featureFile);
-                logger.info(">>>> feature {} of {} on thread {}: {}", index, count, threadName, featureFile.feature.getPath());
-                runner.run(featureFile, formatter);
-                logger.info("<<<< feature {} of {} on thread {}: {}", index, count, threadName, featureFile.feature.getPath());
-                formatter.done();
-                return formatter;
-            });
+        List<List<ScenarioUnit>> featureUnits = new ArrayList<>(featureFiles.size());
+        List<Callable<KarateJunitFormatter>> callables = new ArrayList<>();
+        for (FeatureFile featureFile : featureFiles) {
+            featureUnits.add(getScenarioUnits(featureFile));
+        }
+        int featureCount = featureFiles.size();
+        for (int i = 0; i < featureCount; i++) {
+            int featureIndex = i + 1;
+            List<ScenarioUnit> units = featureUnits.get(i);
+            int unitCount = units.size();
+            for (int j = 0; j < unitCount; j++) {
+                int unitIndex = j + 1;
+                ScenarioUnit unit = units.get(j);
+                callables.add(() -> {
+                    String threadName = Thread.currentThread().getName();
+                    String featurePath = unit.featureFile.feature.getPath();
+                    logger.info(">>>> feature {} of {}, scenario {} of {} on thread {}: {}", featureIndex, featureCount, unitIndex, unitCount, threadName, featurePath);
+                    KarateJunitFormatter formatter = runner.run(unit, stats.getRequestStats());
+                    logger.info("<<<< feature {} of {}, scenario {} of {} on thread {}: {}", featureIndex, featureCount, unitIndex, unitCount, threadName, featurePath);
+                    return formatter;
+                });
+            }
         }
         try {
             List<Future<KarateJunitFormatter>> futures = executor.invokeAll(callables);
             stats.stopTimer();
-            for (Future<KarateJunitFormatter> future : futures) {
-                KarateJunitFormatter formatter = future.get();
+            int index = 0;
+            for (int i = 0; i < featureCount; i++) {
+                FeatureFile featureFile = featureFiles.get(i);
+                int unitCount = featureUnits.get(i).size();
+                List<KarateJunitFormatter> parts = new ArrayList<>(unitCount);
+                for (int j = 0; j < unitCount; j++) {
+                    parts.add(futures.get(index++).get());
+                }
+                String featurePackagePath = getFeaturePackagePath(featureFile);
+                KarateJunitFormatter formatter = KarateJunitFormatter.merge(featurePackagePath, 
+                        getReportPath(reportDir, featurePackagePath), featureFile.feature.getGherkinFeature(), parts);
                 stats.addToTestCount(formatter.getTestCount());
                 stats.addToFailCount(formatter.getFailCount());
                 stats.addToSkipCount(formatter.getSkipCount());
@@ -209,10 +321,32 @@ public class CucumberRunner {
                 }
             }
             stats.printStats(threadCount);
+            stats.writeRequestStats(reportDir);
             return stats;
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
+    protected static class ScenarioUnit {
+
+        private final FeatureFile featureFile;
+        private final CucumberTagStatement statement; // null means the whole feature
+        private final ScenarioOutline outline;
+        private final int scenarioNumber;
+        private final int exampleNumber;
+
+        private ScenarioUnit(FeatureFile featureFile, CucumberTagStatement statement, ScenarioOutline outline, 
+                int scenarioNumber, int exampleNumber) {
+            this.featureFile = featureFile;
+            this.statement = statement;
+            this.outline = outline;
+            this.scenarioNumber = scenarioNumber;
+            this.exampleNumber = exampleNumber;
+        }
+
+    }
+
 }
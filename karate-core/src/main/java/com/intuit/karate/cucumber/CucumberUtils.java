@@ -34,6 +34,7 @@ import cucumber.runtime.model.CucumberFeature;
 import cucumber.runtime.xstream.LocalizedXStreams;
 import gherkin.parser.Parser;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -47,10 +48,18 @@ public class CucumberUtils {
         // only static methods
     }   
 
+    // xstream instances are expensive to create, and hold state while converting step arguments
+    private static final ThreadLocal<Map<ClassLoader, LocalizedXStreams>> XSTREAMS = ThreadLocal.withInitial(HashMap::new);
+
+    public static RuntimeGlue createGlue(ClassLoader classLoader) {
+        LocalizedXStreams xstreams = XSTREAMS.get().computeIfAbsent(classLoader, LocalizedXStreams::new);
+        return new KarateGlue(new UndefinedStepsTracker(), xstreams);
+    }
+
     public static KarateBackend getBackend(ScriptEnv env, ScriptContext parentContext, Map<String, Object> callArg) {
         KarateBackend backend = new KarateBackend(env, parentContext, callArg);
         ClassLoader defaultClassLoader = Thread.currentThread().getContextClassLoader();
-        RuntimeGlue glue = new RuntimeGlue(new UndefinedStepsTracker(), new LocalizedXStreams(defaultClassLoader));
+        RuntimeGlue glue = createGlue(defaultClassLoader);
         backend.loadGlue(glue, null);
         return backend;
     }
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.ScriptEnv;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * bounded lru cache of parsed feature files, keyed by resolved location and
+ * last-modified time so that edits are picked up, shared across threads
+ *
+ * @author pthomas3
+ */
+public class FeatureCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeatureCache.class);
+
+    public static final int MAX_SIZE = 500;
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    private static final Map<String, Entry> CACHE = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private FeatureCache() {
+        // only static methods
+    }
+
+    public static FeatureWrapper get(String location, long lastModified, Supplier<String> reader, ScriptEnv env) {
+        Entry entry;
+        synchronized (CACHE) {
+            entry = CACHE.get(location);
+        }
+        if (entry != null && entry.lastModified == lastModified) {
+            HIT_COUNT.incrementAndGet();
+            return entry.feature.withEnv(env);
+        }
+        long misses = MISS_COUNT.incrementAndGet();
+        FeatureWrapper feature = FeatureWrapper.fromString(reader.get(), env);
+        synchronized (CACHE) {
+            CACHE.put(location, new Entry(lastModified, feature));
+        }
+        logger.debug("feature parsed and cached: {} - hits: {}, misses: {}", location, HIT_COUNT.get(), misses);
+        return feature;
+    }
+
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    public static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    public static long getHitCount() {
+        return HIT_COUNT.get();
+    }
+
+    public static long getMissCount() {
+        return MISS_COUNT.get();
+    }
+
+    private static class Entry {
+
+        private final long lastModified;
+        private final FeatureWrapper feature;
+
+        private Entry(long lastModified, FeatureWrapper feature) {
+            this.lastModified = lastModified;
+            this.feature = feature;
+        }
+
+    }
+
+}
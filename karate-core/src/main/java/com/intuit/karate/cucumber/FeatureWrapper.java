@@ -31,6 +31,7 @@ import cucumber.runtime.model.CucumberTagStatement;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -84,6 +85,10 @@ public class FeatureWrapper {
     }
     
     public String joinLines(int startLine, int endLine) {
+        return joinLines(lines, startLine, endLine);
+    }
+
+    private static String joinLines(List<String> lines, int startLine, int endLine) {
         StringBuilder sb = new StringBuilder();
         for (int i = startLine; i < endLine; i++) {
             String line = lines.get(i);
@@ -115,8 +120,9 @@ public class FeatureWrapper {
     }
     
     public FeatureWrapper addLine(int index, String line) {
-        lines.add(index, line);
-        return new FeatureWrapper(joinLines(), scriptEnv);
+        List<String> temp = new ArrayList<>(lines);
+        temp.add(index, line);
+        return new FeatureWrapper(joinLines(temp, 0, temp.size()), scriptEnv);
     }
     
     public FeatureWrapper replaceStep(StepWrapper step, String text) {
@@ -124,28 +130,46 @@ public class FeatureWrapper {
     }
     
     public FeatureWrapper replaceLines(int start, int end, String text) {
+        List<String> temp = new ArrayList<>(lines);
         for (int i = start; i < end; i++) {
-            lines.remove(start);
+            temp.remove(start);
         }
-        lines.set(start, text);
-        return new FeatureWrapper(joinLines(), scriptEnv);
+        temp.set(start, text);
+        return new FeatureWrapper(joinLines(temp, 0, temp.size()), scriptEnv);
     }
 
     public FeatureWrapper removeLine(int index) {
-        lines.remove(index);
-        return new FeatureWrapper(joinLines(), scriptEnv);
+        List<String> temp = new ArrayList<>(lines);
+        temp.remove(index);
+        return new FeatureWrapper(joinLines(temp, 0, temp.size()), scriptEnv);
+    }
+
+    /**
+     * re-uses the parsed feature (which is never modified) but binds it to a
+     * different env, this is what makes it safe to cache instances
+     */
+    public FeatureWrapper withEnv(ScriptEnv env) {
+        return new FeatureWrapper(text, feature, lines, env);
     }
     
     private FeatureWrapper(String text, ScriptEnv scriptEnv) {        
-        this.text = text;
-        this.scriptEnv = scriptEnv;
-        this.feature = CucumberUtils.parse(text);
+        this(text, CucumberUtils.parse(text), readLines(text), scriptEnv);
+    }
+
+    private static List<String> readLines(String text) {
         try {
             InputStream is = IOUtils.toInputStream(text, "utf-8");
-            this.lines = IOUtils.readLines(is, "utf-8");
+            return Collections.unmodifiableList(IOUtils.readLines(is, "utf-8"));
         } catch (Exception e) {
             throw new RuntimeException(e);
-        }                
+        }
+    }
+
+    private FeatureWrapper(String text, CucumberFeature feature, List<String> lines, ScriptEnv scriptEnv) {
+        this.text = text;
+        this.scriptEnv = scriptEnv;
+        this.feature = feature;
+        this.lines = lines;
         featureSections = new ArrayList<>();
         List<CucumberTagStatement> elements = feature.getFeatureElements();
         int count = elements.size();
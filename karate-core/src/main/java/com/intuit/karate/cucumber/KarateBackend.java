@@ -27,13 +27,11 @@ import com.intuit.karate.ScriptContext;
 import com.intuit.karate.ScriptEnv;
 import com.intuit.karate.StepDefs;
 import cucumber.runtime.Backend;
-import cucumber.runtime.ClassFinder;
 import cucumber.runtime.Glue;
 import cucumber.runtime.UnreportedStepExecutor;
 import cucumber.runtime.java.JavaBackend;
 import cucumber.runtime.snippets.FunctionNameGenerator;
 import gherkin.formatter.model.Step;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -47,14 +45,13 @@ public class KarateBackend implements Backend {
     
     private static final Logger logger = LoggerFactory.getLogger(KarateBackend.class);
     
-    private final JavaBackend backend;
+    private final ClassLoader classLoader;
     private final KarateObjectFactory objectFactory;
     private Glue glue;
     
     public KarateBackend(ScriptEnv env, ScriptContext parentContext, Map<String, Object> callArg) {
-        ClassFinder classFinder = new KarateClassFinder(env.fileClassLoader);
+        classLoader = env.fileClassLoader;
         objectFactory = new KarateObjectFactory(env, parentContext, callArg);
-        backend = new JavaBackend(objectFactory, classFinder);        
     }
 
     public StepDefs getStepDefs() {
@@ -69,33 +66,33 @@ public class KarateBackend implements Backend {
     public void loadGlue(Glue glue, List<String> NOT_USED) {        
         logger.trace("load glue");
         this.glue = glue;
-        Class glueCodeClass = StepDefs.class;
-        for (Method method : glueCodeClass.getMethods()) {
-            backend.loadGlue(glue, method, glueCodeClass);
-        }         
+        // the step definitions are built once, here they are just bound to this backend
+        for (KarateStepDefinition template : KarateStepDefinition.getTemplates(StepDefs.class)) {
+            glue.addStepDefinition(template.bind(objectFactory));
+        }
     }
 
     @Override
     public void setUnreportedStepExecutor(UnreportedStepExecutor executor) {
         logger.trace("set unreported step executor");
-        backend.setUnreportedStepExecutor(executor);
     }
 
     @Override
     public void buildWorld() {
         logger.trace("build world");
-        backend.buildWorld();
+        objectFactory.start();
     }
 
     @Override
     public void disposeWorld() {
         logger.trace("dispose world");
-        backend.disposeWorld();
+        objectFactory.stop();
     }
 
     @Override
     public String getSnippet(Step step, FunctionNameGenerator functionNameGenerator) {
         logger.debug("get snippet");
+        JavaBackend backend = new JavaBackend(objectFactory, new KarateClassFinder(classLoader));
         return backend.getSnippet(step, functionNameGenerator);
     }
     
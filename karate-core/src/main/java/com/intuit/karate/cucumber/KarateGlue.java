@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.StepDefs;
+import cucumber.runtime.RuntimeGlue;
+import cucumber.runtime.StepDefinition;
+import cucumber.runtime.StepDefinitionMatch;
+import cucumber.runtime.UndefinedStepsTracker;
+import cucumber.runtime.xstream.LocalizedXStreams;
+import gherkin.I18n;
+import gherkin.formatter.model.Step;
+
+/**
+ * looks up step definitions via the keyword index instead of trying every
+ * regex, falls back to cucumber for undefined or ambiguous steps so that they
+ * are reported the same way as before
+ *
+ * @author pthomas3
+ */
+public class KarateGlue extends RuntimeGlue {
+
+    private final UndefinedStepsTracker tracker;
+    private final LocalizedXStreams localizedXStreams;
+    private final StepDefinitionIndex index;
+    private final KarateStepDefinition[] bound;
+
+    public KarateGlue(UndefinedStepsTracker tracker, LocalizedXStreams localizedXStreams) {
+        super(tracker, localizedXStreams);
+        this.tracker = tracker;
+        this.localizedXStreams = localizedXStreams;
+        index = KarateStepDefinition.getIndex(StepDefs.class);
+        bound = new KarateStepDefinition[index.getDefinitions().size()];
+    }
+
+    @Override
+    public void addStepDefinition(StepDefinition stepDefinition) {
+        super.addStepDefinition(stepDefinition);
+        if (stepDefinition instanceof KarateStepDefinition) {
+            KarateStepDefinition ksd = (KarateStepDefinition) stepDefinition;
+            bound[ksd.getIndex()] = ksd;
+        }
+    }
+
+    @Override
+    public StepDefinitionMatch stepDefinitionMatch(String featurePath, Step step, I18n i18n) {
+        StepDefinitionIndex.Resolved resolved = index.resolve(step);
+        if (resolved == null || bound[resolved.getIndex()] == null) {
+            return super.stepDefinitionMatch(featurePath, step, i18n);
+        }
+        tracker.storeStepKeyword(step, i18n);
+        return new StepDefinitionMatch(resolved.getArguments(), bound[resolved.getIndex()], featurePath, step, localizedXStreams);
+    }
+
+}
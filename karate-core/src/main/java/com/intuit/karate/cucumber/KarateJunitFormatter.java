@@ -124,9 +124,13 @@ public class KarateJunitFormatter implements Formatter, Reporter, StrictAware {
     public KarateJunitFormatter(String featurePath, String reportPath) throws IOException {
         this.featurePath = featurePath;
         this.reportPath = reportPath;
-        logger.debug(">> {}", reportPath);
-        URL url = FileUtils.toFileUrl(reportPath);
-        this.out = new UTF8OutputStreamWriter(new URLOutputStream(url));
+        if (reportPath == null) { // in-memory only, see merge()
+            this.out = null;
+        } else {
+            logger.debug(">> {}", reportPath);
+            URL url = FileUtils.toFileUrl(reportPath);
+            this.out = new UTF8OutputStreamWriter(new URLOutputStream(url));
+        }
         try {
             doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
             rootElement = doc.createElement("testsuite");
@@ -136,6 +140,40 @@ public class KarateJunitFormatter implements Formatter, Reporter, StrictAware {
         }
     }
 
+    /**
+     * when a single scenario (or outline example) is run on its own, this
+     * sets the position it has within the feature, so that generated names
+     * come out the same as for a sequential run
+     */
+    protected void resume(int scenarioCount, int exampleCount) {
+        currentScenario = scenarioCount;
+        if (testCase != null) {
+            testCase.exampleNumber = exampleCount;
+        }
+    }
+
+    /**
+     * combines the results of scenarios that were run separately (in
+     * parallel) into a single report for the feature, in the given order
+     */
+    public static KarateJunitFormatter merge(String featurePath, String reportPath, Feature feature, 
+            List<KarateJunitFormatter> parts) throws IOException {
+        KarateJunitFormatter merged = new KarateJunitFormatter(featurePath, reportPath);
+        merged.feature(feature);
+        for (KarateJunitFormatter part : parts) {
+            NodeList nodes = part.rootElement.getChildNodes();
+            for (int i = 0; i < nodes.getLength(); i++) {
+                Node node = nodes.item(i);
+                if ("testcase".equals(node.getNodeName())) {
+                    merged.rootElement.appendChild(merged.doc.importNode(node, true));
+                    merged.increaseAttributeValue(merged.rootElement, "tests");
+                }
+            }
+        }
+        merged.done();
+        return merged;
+    }
+
     @Override
     public void feature(Feature feature) {
         logger.trace("feature: {}", feature);
@@ -197,7 +235,8 @@ public class KarateJunitFormatter implements Formatter, Reporter, StrictAware {
                 featureName = featurePath;
             }
             rootElement.setAttribute("name", featureName);
-            testCount = Integer.valueOf(rootElement.getAttribute("tests"));
+            String tests = rootElement.getAttribute("tests");
+            testCount = tests.isEmpty() ? 0 : Integer.valueOf(tests);
             failCount = rootElement.getElementsByTagName("failure").getLength();
             rootElement.setAttribute("failures", String.valueOf(failCount));
             skipCount = rootElement.getElementsByTagName("skipped").getLength();
@@ -23,8 +23,15 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.RequestStats;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import net.minidev.json.JSONStyle;
+import net.minidev.json.JSONValue;
+import org.apache.commons.io.FileUtils;
 
 /**
  *
@@ -32,6 +39,8 @@ import java.util.List;
  */
 public class KarateStats {
     
+    public static final String REQUEST_STATS_FILE = "karate-request-stats.json";
+    
     private int testCount;
     private int failCount;
     private int skipCount;
@@ -39,6 +48,7 @@ public class KarateStats {
     private final long startTime;
     private long endTime;
     private List<String> failedList;
+    private final RequestStats requestStats = new RequestStats();
     
     private KarateStats(long startTime) {
         this.startTime = startTime;
@@ -82,12 +92,38 @@ public class KarateStats {
         double efficiency = 1000 * timeTaken / (elapsedTime * threadCount);
         System.out.println(String.format("thread count: %2d | parallel efficiency: %f", threadCount, efficiency));
         System.out.println(String.format("scenarios: %3d | failed: %3d | skipped: %3d", testCount, failCount, skipCount));
+        System.out.println(String.format("feature cache hits: %d | misses: %d", FeatureCache.getHitCount(), FeatureCache.getMissCount()));
+        for (Map<String, Object> map : requestStats.getSummary()) {
+            System.out.println(String.format("%s | count: %d | errors: %d | p50: %.2f | p90: %.2f | p99: %.2f | max: %.2f (ms)",
+                    map.get("name"), map.get("count"), map.get("errors"), map.get("p50"), map.get("p90"), map.get("p99"), map.get("max")));
+        }
         System.out.println("=========================================================");
         if (failedList != null) {
             System.out.println("failed: " + failedList);
         }
     }
 
+    /**
+     * http response times (per method and url template) as json, in the same
+     * directory as the junit xml reports
+     */
+    public File writeRequestStats(String reportDir) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("elapsedTime", endTime - startTime);
+        map.put("requests", requestStats.getSummary());
+        File file = new File(reportDir, REQUEST_STATS_FILE);
+        try {
+            FileUtils.writeStringToFile(file, JSONValue.toJSONString(map, JSONStyle.NO_COMPRESS), "utf-8");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return file;
+    }
+
+    public RequestStats getRequestStats() {
+        return requestStats;
+    }
+
     public int getTestCount() {
         return testCount;
     }
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import cucumber.api.java.ObjectFactory;
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.JdkPatternArgumentMatcher;
+import cucumber.runtime.MethodFormat;
+import cucumber.runtime.ParameterInfo;
+import cucumber.runtime.StepDefinition;
+import cucumber.runtime.Utils;
+import cucumber.runtime.java.StepDefAnnotation;
+import gherkin.I18n;
+import gherkin.formatter.Argument;
+import gherkin.formatter.model.Step;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * equivalent of the cucumber-jvm JavaStepDefinition, except that the parts
+ * that are expensive to build (reflection, regex compilation) are created
+ * once per glue class and shared, and only the object-factory is bound per
+ * backend
+ *
+ * @author pthomas3
+ */
+public class KarateStepDefinition implements StepDefinition {
+
+    private static final Map<Class, StepDefinitionIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final int index;
+    private final Method method;
+    private final String pattern;
+    private final long timeoutMillis;
+    private final JdkPatternArgumentMatcher argumentMatcher;
+    private final List<ParameterInfo> parameterInfos;
+    private final ObjectFactory objectFactory;
+
+    private KarateStepDefinition(int index, Method method, String pattern, long timeoutMillis,
+            JdkPatternArgumentMatcher argumentMatcher, List<ParameterInfo> parameterInfos, ObjectFactory objectFactory) {
+        this.index = index;
+        this.method = method;
+        this.pattern = pattern;
+        this.timeoutMillis = timeoutMillis;
+        this.argumentMatcher = argumentMatcher;
+        this.parameterInfos = parameterInfos;
+        this.objectFactory = objectFactory;
+    }
+
+    public KarateStepDefinition bind(ObjectFactory objectFactory) {
+        return new KarateStepDefinition(index, method, pattern, timeoutMillis, argumentMatcher, parameterInfos, objectFactory);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public static List<KarateStepDefinition> getTemplates(Class glueClass) {
+        return getIndex(glueClass).getDefinitions();
+    }
+
+    public static StepDefinitionIndex getIndex(Class glueClass) {
+        return INDEXES.computeIfAbsent(glueClass, c -> new StepDefinitionIndex(scan(c)));
+    }
+
+    private static List<KarateStepDefinition> scan(Class glueClass) {
+        List<KarateStepDefinition> list = new ArrayList<>();
+        for (Method method : glueClass.getMethods()) {
+            for (Annotation annotation : method.getAnnotations()) {
+                if (annotation.annotationType().getAnnotation(StepDefAnnotation.class) == null) {
+                    continue;
+                }
+                String regex;
+                long timeout;
+                try {
+                    regex = (String) annotation.annotationType().getMethod("value").invoke(annotation);
+                    timeout = (Long) annotation.annotationType().getMethod("timeout").invoke(annotation);
+                } catch (Exception e) {
+                    throw new CucumberException(e);
+                }
+                JdkPatternArgumentMatcher matcher = new JdkPatternArgumentMatcher(Pattern.compile(regex));
+                List<ParameterInfo> infos = Collections.unmodifiableList(ParameterInfo.fromMethod(method));
+                list.add(new KarateStepDefinition(list.size(), method, regex, timeout, matcher, infos, null));
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public List<Argument> matchedArguments(Step step) {
+        return argumentMatcher.argumentsFrom(step.getName());
+    }
+
+    @Override
+    public String getLocation(boolean detail) {
+        MethodFormat format = detail ? MethodFormat.FULL : MethodFormat.SHORT;
+        return format.format(method);
+    }
+
+    @Override
+    public Integer getParameterCount() {
+        return parameterInfos.size();
+    }
+
+    @Override
+    public ParameterInfo getParameterType(int n, Type argumentType) throws IndexOutOfBoundsException {
+        return parameterInfos.get(n);
+    }
+
+    @Override
+    public void execute(I18n i18n, Object[] args) throws Throwable {
+        Utils.invoke(objectFactory.getInstance(method.getDeclaringClass()), method, timeoutMillis, args);
+    }
+
+    @Override
+    public boolean isDefinedAt(StackTraceElement e) {
+        return e.getClassName().equals(method.getDeclaringClass().getName()) && e.getMethodName().equals(method.getName());
+    }
+
+    @Override
+    public String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public boolean isScenarioScoped() {
+        return false;
+    }
+
+}
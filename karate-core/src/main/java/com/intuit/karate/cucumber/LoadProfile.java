@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * how a load test drives scenarios: either a constant number of concurrent
+ * users (each runs one scenario after another), or a constant arrival rate
+ * of scenarios (started on schedule, whether or not earlier ones are done)
+ * - with a linear ramp-up in both cases
+ *
+ * @author pthomas3
+ */
+public class LoadProfile {
+
+    private final int users;
+    private final double rate; // scenarios per second, zero for constant concurrency
+    private final long rampUp; // milliseconds
+    private final long duration; // milliseconds, including the ramp-up
+
+    private LoadProfile(int users, double rate, long rampUp, long duration) {
+        if (users < 1) {
+            throw new RuntimeException("users must be at least 1: " + users);
+        }
+        if (duration <= 0 || rampUp < 0 || rampUp > duration) {
+            throw new RuntimeException("invalid ramp-up / duration: " + rampUp + " / " + duration);
+        }
+        this.users = users;
+        this.rate = rate;
+        this.rampUp = rampUp;
+        this.duration = duration;
+    }
+
+    /**
+     * closed model, the number of users is reached at the end of the ramp-up
+     */
+    public static LoadProfile users(int users, long rampUpMillis, long durationMillis) {
+        return new LoadProfile(users, 0, rampUpMillis, durationMillis);
+    }
+
+    /**
+     * open model, the rate is reached at the end of the ramp-up and at most
+     * max-users scenarios are in flight, the rest wait (which counts towards
+     * their response times)
+     */
+    public static LoadProfile rate(double perSecond, int maxUsers, long rampUpMillis, long durationMillis) {
+        if (perSecond <= 0) {
+            throw new RuntimeException("rate must be positive: " + perSecond);
+        }
+        return new LoadProfile(maxUsers, perSecond, rampUpMillis, durationMillis);
+    }
+
+    public boolean isArrivalRate() {
+        return rate > 0;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public long getRampUp() {
+        return rampUp;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * for constant concurrency, when (nanoseconds from start) a user begins
+     */
+    public long getUserStartTime(int user) {
+        return TimeUnit.MILLISECONDS.toNanos(rampUp) * user / users;
+    }
+
+    /**
+     * for an arrival rate, when (nanoseconds from start) the n-th scenario is
+     * due, the rate grows linearly during the ramp-up so the number started
+     * by time t is rate * t * t / (2 * ramp-up)
+     */
+    public long getScheduledTime(long n) {
+        double rampUpSeconds = rampUp / 1000d;
+        double rampUpCount = rate * rampUpSeconds / 2;
+        double seconds;
+        if (n < rampUpCount) {
+            seconds = Math.sqrt(2 * rampUpSeconds * n / rate);
+        } else {
+            seconds = rampUpSeconds + (n - rampUpCount) / rate;
+        }
+        return (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        String load = isArrivalRate() ? "rate: " + rate + "/s | max users: " + users : "users: " + users;
+        return load + " | ramp-up: " + rampUp + " ms | duration: " + duration + " ms";
+    }
+
+}
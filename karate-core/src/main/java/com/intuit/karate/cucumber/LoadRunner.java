@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.RequestStats;
+import com.intuit.karate.cucumber.CucumberRunner.ScenarioUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * runs the scenarios of the features (as selected by the cucumber options of
+ * the class) over and over, as per the load profile - every http request is
+ * timed, and the results are printed at the end
+ *
+ * @author pthomas3
+ */
+public class LoadRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadRunner.class);
+
+    private final CucumberRunner runner;
+    private final List<ScenarioUnit> units;
+    private final LoadProfile profile;
+    private final AtomicLong counter = new AtomicLong();
+    private LoadStats stats;
+
+    private LoadRunner(Class clazz, LoadProfile profile) {
+        runner = new CucumberRunner(clazz);
+        units = new ArrayList<>();
+        for (FeatureFile featureFile : runner.getFeatureFiles()) {
+            units.addAll(CucumberRunner.getScenarioUnits(featureFile));
+        }
+        if (units.isEmpty()) {
+            throw new RuntimeException("no scenarios found to run for: " + clazz);
+        }
+        this.profile = profile;
+    }
+
+    public static LoadStats run(Class clazz, LoadProfile profile) {
+        LoadRunner loadRunner = new LoadRunner(clazz, profile);
+        LoadStats stats = loadRunner.run();
+        stats.printStats();
+        return stats;
+    }
+
+    private LoadStats run() {
+        ExecutorService executor = Executors.newFixedThreadPool(profile.getUsers());
+        long startTime = System.nanoTime();
+        long endTime = startTime + TimeUnit.MILLISECONDS.toNanos(profile.getDuration());
+        stats = new LoadStats(profile, startTime);
+        logger.info("load test starting, {}, scenarios: {}", profile, units.size());
+        try {
+            if (profile.isArrivalRate()) {
+                for (long n = 0;; n++) {
+                    long scheduledTime = startTime + profile.getScheduledTime(n);
+                    if (scheduledTime >= endTime) {
+                        break;
+                    }
+                    parkUntil(scheduledTime);
+                    executor.submit(() -> runScenario(scheduledTime));
+                }
+            } else {
+                for (int i = 0; i < profile.getUsers(); i++) {
+                    long userStartTime = startTime + profile.getUserStartTime(i);
+                    executor.submit(() -> {
+                        parkUntil(userStartTime);
+                        while (System.nanoTime() < endTime) {
+                            runScenario(System.nanoTime());
+                        }
+                    });
+                }
+            }
+            executor.shutdown();
+            // scenarios already due are still run, else a slow server would look faster than it is
+            long graceMillis = profile.getDuration() + TimeUnit.MINUTES.toMillis(1);
+            if (!executor.awaitTermination(graceMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("load test scenarios still running after {} ms, abandoning", graceMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        stats.stopTimer(System.nanoTime());
+        return stats;
+    }
+
+    private static void parkUntil(long time) {
+        long delay;
+        while ((delay = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private void runScenario(long scheduledTime) {
+        ScenarioUnit unit = units.get((int) (counter.getAndIncrement() % units.size()));
+        long lateness = System.nanoTime() - scheduledTime;
+        RequestStats requestStats = stats.getRequestStats().withOffset(lateness);
+        boolean failed;
+        try {
+            KarateJunitFormatter formatter = runner.run(unit, requestStats);
+            failed = formatter.isFail();
+        } catch (Exception e) {
+            logger.error("load test scenario failed: {}", e.getMessage());
+            failed = true;
+        }
+        stats.addScenario(System.nanoTime() - scheduledTime, failed);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.LatencyHistogram;
+import com.intuit.karate.RequestStats;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * results of a load test, response times are in milliseconds
+ *
+ * @author pthomas3
+ */
+public class LoadStats {
+
+    private final LoadProfile profile;
+    private final RequestStats requestStats = new RequestStats();
+    private final LatencyHistogram scenarios = new LatencyHistogram();
+    private final LongAdder failCount = new LongAdder();
+    private final long startTime;
+    private long endTime;
+
+    protected LoadStats(LoadProfile profile, long startTime) {
+        this.profile = profile;
+        this.startTime = startTime;
+    }
+
+    protected void addScenario(long nanos, boolean failed) {
+        scenarios.record(nanos);
+        if (failed) {
+            failCount.increment();
+        }
+    }
+
+    protected void stopTimer(long endTime) {
+        this.endTime = endTime;
+    }
+
+    public LoadProfile getProfile() {
+        return profile;
+    }
+
+    public RequestStats getRequestStats() {
+        return requestStats;
+    }
+
+    public LatencyHistogram getScenarios() {
+        return scenarios;
+    }
+
+    public long getScenarioCount() {
+        return scenarios.getCount();
+    }
+
+    public long getFailCount() {
+        return failCount.sum();
+    }
+
+    public double getElapsedTime() { // seconds
+        return (double) (endTime - startTime) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public double getThroughput(LatencyHistogram histogram) { // per second
+        double elapsed = getElapsedTime();
+        return elapsed == 0 ? 0 : histogram.getCount() / elapsed;
+    }
+
+    private String format(String name, LatencyHistogram h, long errors) {
+        return String.format("%s | count: %d | errors: %d | per second: %.2f | p50: %.2f | p90: %.2f | p99: %.2f | p99.9: %.2f | max: %.2f",
+                name, h.getCount(), errors, getThroughput(h),
+                LatencyHistogram.toMillis(h.getValueAtPercentile(50)), LatencyHistogram.toMillis(h.getValueAtPercentile(90)),
+                LatencyHistogram.toMillis(h.getValueAtPercentile(99)), LatencyHistogram.toMillis(h.getValueAtPercentile(99.9)),
+                LatencyHistogram.toMillis(h.getMax()));
+    }
+
+    public void printStats() {
+        System.out.println("=========================================================");
+        System.out.println("load profile: " + profile);
+        System.out.println(String.format("elapsed time: %f | scenarios: %d | failed: %d", getElapsedTime(), getScenarioCount(), getFailCount()));
+        if (profile.isArrivalRate()) {
+            System.out.println("response times (ms) include time spent waiting for a free user, corrected for coordinated omission");
+        } else {
+            System.out.println("response times (ms) are service times, use an arrival rate to correct for coordinated omission");
+        }
+        System.out.println(format("scenario", scenarios, getFailCount()));
+        for (Map.Entry<String, LatencyHistogram> entry : requestStats.getHistograms().entrySet()) {
+            String key = entry.getKey();
+            System.out.println(format(key, entry.getValue(), requestStats.getErrorCount(key)));
+        }
+        System.out.println("=========================================================");
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import gherkin.formatter.Argument;
+import gherkin.formatter.model.Step;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * step definitions grouped by the leading keyword of their regex, so that a
+ * step is only matched against the few definitions that can possibly apply,
+ * the result is also remembered per (parsed, and re-used) step instance
+ *
+ * @author pthomas3
+ */
+public class StepDefinitionIndex {
+
+    private final List<KarateStepDefinition> definitions;
+    private final Map<String, List<KarateStepDefinition>> byKeyword = new HashMap<>();
+    private final Map<String, List<KarateStepDefinition>> byPrefix = new HashMap<>();
+    private final List<KarateStepDefinition> unindexed = new ArrayList<>();
+    private final Map<Step, Resolved> resolved = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public StepDefinitionIndex(List<KarateStepDefinition> definitions) {
+        this.definitions = definitions;
+        for (KarateStepDefinition def : definitions) {
+            String literal = getLiteralPrefix(def.getPattern());
+            if (literal.isEmpty()) {
+                unindexed.add(def);
+                continue;
+            }
+            int pos = literal.indexOf(' ');
+            if (pos == -1) { // e.g. '^await( .+)?' can match a step that has more after the literal
+                byPrefix.computeIfAbsent(literal, k -> new ArrayList<>()).add(def);
+            } else {
+                byKeyword.computeIfAbsent(literal.substring(0, pos), k -> new ArrayList<>()).add(def);
+            }
+        }
+    }
+
+    /**
+     * the text that any step matching this regex has to start with
+     */
+    protected static String getLiteralPrefix(String regex) {
+        if (!regex.startsWith("^") || regex.indexOf('|') != -1) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        int count = regex.length();
+        for (int i = 1; i < count; i++) {
+            char c = regex.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == ' ') {
+                sb.append(c);
+                continue;
+            }
+            if ((c == '?' || c == '*' || c == '{') && sb.length() > 0) {
+                sb.setLength(sb.length() - 1); // previous char is optional
+            }
+            break;
+        }
+        return sb.toString();
+    }
+
+    public List<KarateStepDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    public List<KarateStepDefinition> getCandidates(String stepName) {
+        int pos = stepName.indexOf(' ');
+        String first = pos == -1 ? stepName : stepName.substring(0, pos);
+        List<KarateStepDefinition> list = new ArrayList<>(unindexed);
+        List<KarateStepDefinition> temp = byKeyword.get(first);
+        if (temp != null) {
+            list.addAll(temp);
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            temp = byPrefix.get(first.substring(0, i));
+            if (temp != null) {
+                list.addAll(temp);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * returns null if the step does not match exactly one definition, leaving
+     * it to cucumber to report the step as undefined or ambiguous
+     */
+    public Resolved resolve(Step step) {
+        Resolved result = resolved.get(step);
+        if (result != null) {
+            return result;
+        }
+        for (KarateStepDefinition def : getCandidates(step.getName())) {
+            List<Argument> arguments = def.matchedArguments(step);
+            if (arguments != null) {
+                if (result != null) {
+                    return null;
+                }
+                result = new Resolved(def.getIndex(), arguments);
+            }
+        }
+        if (result != null) {
+            resolved.put(step, result);
+        }
+        return result;
+    }
+
+    public static class Resolved {
+
+        private final int index;
+        private final List<Argument> arguments;
+
+        private Resolved(int index, List<Argument> arguments) {
+            this.index = index;
+            this.arguments = arguments;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public List<Argument> getArguments() {
+            return arguments;
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class BsonMapTest {
+
+    private static final String JSON = "{ a: 'foo', b: 1, c: { d: [1, 'two', { e: null }], f: true }, g: 1.5, h: [] }";
+
+    private static BsonMap map() {
+        BsonDocument bson = BsonDocument.parse(JSON);
+        return new BsonMap(BsonUtils.wrapRawBson(BsonUtils.toByteArray(bson)));
+    }
+
+    @Test
+    public void testSameAsBsonToJson() {
+        BsonDocument bson = BsonDocument.parse(JSON);
+        assertEquals(BsonUtils.bsonToJson(bson), map());
+        assertEquals(5, map().size());
+    }
+
+    @Test
+    public void testLookupWithoutDecodingEverything() {
+        BsonMap map = map();
+        Map c = (Map) map.get("c");
+        assertTrue(c instanceof BsonMap);
+        assertSame(c, map.get("c"));
+        List d = (List) c.get("d");
+        assertEquals(3, d.size());
+        assertEquals("two", d.get(1));
+        assertTrue(((Map) d.get(2)).containsKey("e"));
+        assertNull(((Map) d.get(2)).get("e"));
+        assertFalse(map.containsKey("z"));
+        assertNull(map.get("z"));
+        // a value looked up before everything is decoded is the one that stays
+        map.entrySet();
+        assertSame(c, map.get("c"));
+    }
+
+    @Test
+    public void testCopyStaysLazyAndKeepsChanges() {
+        BsonMap map = map();
+        Map c = (Map) map.get("c");
+        c.put("f", false); // changed before the copy
+        Object copied = Script.copy(new ScriptValue(map)).getValue();
+        assertTrue(copied instanceof BsonMap);
+        BsonMap copy = (BsonMap) copied;
+        assertEquals(map, copy);
+        Map copyOfC = (Map) copy.get("c");
+        assertNotSame(c, copyOfC);
+        assertEquals(false, copyOfC.get("f"));
+        assertTrue(copy.get("h") instanceof List); // never decoded by the original, read from the bytes
+        copyOfC.put("f", true);
+        ((List) copy.get("h")).add(1);
+        assertEquals(false, c.get("f"));
+        assertTrue(((List) map.get("h")).isEmpty());
+    }
+
+    @Test
+    public void testJsonPathAndSet() {
+        BsonMap map = map();
+        DocumentContext doc = JsonPath.parse(map);
+        assertEquals("two", doc.read("$.c.d[1]"));
+        assertEquals(true, doc.read("$.c.f"));
+        doc.set("$.c.f", false);
+        doc.put("$", "z", 2);
+        assertEquals(false, doc.read("$.c.f"));
+        assertEquals(2, map.get("z"));
+        assertEquals(6, map.size());
+    }
+
+    @Test
+    public void testNotBson() {
+        assertNull(BsonUtils.wrapRawBson("{ \"a\": 1 }".getBytes()));
+        assertNull(BsonUtils.wrapRawBson(new byte[0]));
+        assertNotNull(BsonUtils.wrapRawBson(BsonUtils.toByteArray(new BsonDocument())));
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        Map expected = BsonUtils.bsonToJson(BsonDocument.parse(JSON));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < 200; i++) {
+                BsonMap map = map();
+                CyclicBarrier barrier = new CyclicBarrier(threads);
+                List<Future<Boolean>> futures = new ArrayList<>();
+                for (int j = 0; j < threads; j++) {
+                    boolean all = j % 2 == 0; // half look up keys, half read everything
+                    futures.add(executor.submit(() -> {
+                        barrier.await();
+                        if (all) {
+                            return expected.equals(new HashMap(map));
+                        }
+                        return expected.get("c").equals(map.get("c")) && map.containsKey("h");
+                    }));
+                }
+                for (Future<Boolean> future : futures) {
+                    assertTrue(future.get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.io.InputStream;
+import java.util.Map;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.apache.commons.io.IOUtils;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class BsonUtilsTest {
+
+    private static final String JSON = "{ a: 'foo', b: 1, c: 3000000000, d: 1.5, e: true, f: null,"
+            + " g: { h: [1, 'two', { i: [] }] }, j: [] }";
+
+    @Test
+    public void testRawBsonSameAsBsonDocument() {
+        Map<String, Object> map = JsonUtils.toJsonDoc(JSON).read("$");
+        RawBsonDocument raw = BsonUtils.toRawBson(map);
+        BsonDocument bson = BsonUtils.jsonToBson(JSONValue.parse(JSON, JSONObject.class));
+        assertEquals(bson, raw);
+        assertTrue(raw.get("b").isInt32());
+        assertTrue(raw.get("c").isInt64());
+        assertArrayEquals(BsonUtils.toByteArray(bson), BsonUtils.toByteArray(raw));
+        // the buffer is re-used, so make sure nothing is left over from the last call
+        RawBsonDocument small = BsonUtils.toRawBson(JsonUtils.toJsonDoc("{ a: 1 }").read("$"));
+        assertEquals(BsonDocument.parse("{ a: 1 }"), small);
+    }
+
+    @Test
+    public void testInputStreamOfRawBson() throws Exception {
+        Map<String, Object> map = JsonUtils.toJsonDoc(JSON).read("$");
+        RawBsonDocument raw = BsonUtils.toRawBson(map);
+        InputStream is = BsonUtils.toInputStream(raw);
+        assertArrayEquals(BsonUtils.toByteArray(raw), IOUtils.toByteArray(is));
+    }
+
+}
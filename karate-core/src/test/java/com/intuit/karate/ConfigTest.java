@@ -1,6 +1,12 @@
 package com.intuit.karate;
 
 import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -10,6 +16,9 @@ import static org.junit.Assert.*;
  */
 public class ConfigTest {
     
+    public static final AtomicInteger CONFIG_CALLS = new AtomicInteger();
+    public static final AtomicInteger CLOSURE_CONFIG_CALLS = new AtomicInteger();
+    
     @Test
     public void testSettingVariableViaKarateConfig() {
         String featureDir = FileUtils.getDirContaining(getClass()).getPath();
@@ -19,4 +28,68 @@ public class ConfigTest {
         assertEquals("someValue", value.getValue());
     }
     
+    @Test
+    public void testConfigCacheEvaluatesConfigOncePerEnv() throws Exception {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        // no parent, else the karate-config.js at the root of the test class-path would be found first
+        URL url = new File(featureDir, "configcache").toURI().toURL();
+        ClassLoader cl = new URLClassLoader(new URL[]{url}, null);
+        ScriptEnv env = new ScriptEnv(true, "cached", new File(featureDir), null, cl);
+        ScriptContext first = new ScriptContext(env, null, null);
+        ScriptContext second = new ScriptContext(env, null, null);
+        assertEquals(1, CONFIG_CALLS.get());
+        assertEquals(1, Script.evalInNashorn("configCalls", second).getValue());
+        // changes made by one scenario are not seen by the next
+        Script.setValueByPath("data", "$.foo", "'baz'", first);
+        assertTrue(Script.matchNamed("data", null, "{ foo: 'baz' }", first).pass);
+        assertTrue(Script.matchNamed("data", null, "{ foo: 'bar' }", second).pass);
+        // per-scenario keys are evaluated afresh
+        String firstId = (String) Script.evalInNashorn("requestId", first).getValue();
+        String secondId = (String) Script.evalInNashorn("requestId", second).getValue();
+        assertNotEquals(firstId, secondId);
+        // functions belong to the thread that uses the context
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Object result = executor.submit(() -> {
+                ScriptContext ctx = new ScriptContext(env, null, null);
+                return Script.evalInNashorn("hello('world')", ctx).getValue();
+            }).get();
+            assertEquals("hello world", result);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, CONFIG_CALLS.get());
+    }
+
+    @Test
+    public void testConfigCacheNotUsedForFunctionsThatCloseOverVariables() throws Exception {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        URL url = new File(featureDir, "configcache-closure").toURI().toURL();
+        ClassLoader cl = new URLClassLoader(new URL[]{url}, null);
+        ScriptEnv env = new ScriptEnv(true, "closure", new File(featureDir), null, cl);
+        ScriptContext first = new ScriptContext(env, null, null);
+        ScriptContext second = new ScriptContext(env, null, null);
+        // 'base' would be lost if the function was re-created from its source, so the config runs every time
+        assertEquals(2, CLOSURE_CONFIG_CALLS.get());
+        assertEquals("http://localhost:8081/foo", Script.evalInNashorn("baseUrl('/foo')", first).getValue());
+        assertEquals("http://localhost:8082/foo", Script.evalInNashorn("baseUrl('/foo')", second).getValue());
+    }
+
+    @Test
+    public void testFreeNamesOfFunction() {
+        assertEquals(Collections.emptySet(), ConfigSnapshot.getFreeNames(
+                "function(a, b) { var c = a + b, d = [1, 2]; return { foo: c, bar: java.util.UUID.randomUUID() + 'x y' } }"));
+        assertEquals(Collections.emptySet(), ConfigSnapshot.getFreeNames(
+                "function() { try { return inner() } catch (e) { return JSON.stringify(e) } function inner() { return 1 } }"));
+        assertEquals(Collections.singleton("base"), ConfigSnapshot.getFreeNames(
+                "function(path) { return base + path.trim() /* not: other */ + \"other\" }"));
+        assertEquals(Collections.singleton("base"), ConfigSnapshot.getFreeNames(
+                "function(s) { return s.replace(/'/g, '') + base }"));
+        assertEquals(Collections.singleton("x"), ConfigSnapshot.getFreeNames(
+                "function() { var f = function() { var x = 1; return x }; return f() + x }"));
+        assertEquals(Collections.singleton("y"), ConfigSnapshot.getFreeNames(
+                "function(a) { try { return a } catch (e) { return e } finally { y = 1 } }"));
+        assertNull(ConfigSnapshot.getFreeNames("function( {"));
+    }
+
 }
@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import java.io.File;
+import java.net.SocketTimeoutException;
+import javax.ws.rs.client.Client;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class HttpClientPoolTest {
+
+    @ClassRule
+    public static WireMockClassRule WIREMOCK_RULE = new WireMockClassRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public WireMockClassRule instanceRule = WIREMOCK_RULE;
+
+    private static HttpClientPool.Config config(String proxyUri, int maxPerHost) {
+        return new HttpClientPool.Config(false, null, proxyUri, null, null,
+                HttpClientPool.DEFAULT_MAX_TOTAL, maxPerHost, HttpClientPool.DEFAULT_IDLE_TIMEOUT);
+    }
+
+    @Test
+    public void testClientSharedPerConfig() {
+        Client first = HttpClientPool.getClient(config(null, 10));
+        assertSame(first, HttpClientPool.getClient(config(null, 10)));
+        assertNotSame(first, HttpClientPool.getClient(config("http://localhost:3128", 10)));
+        assertNotSame(first, HttpClientPool.getClient(config(null, 5)));
+    }
+
+    @Test
+    public void testLogMaxBytesDoesNotChangeClient() {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        ScriptContext ctx = new ScriptContext(ScriptEnv.test("dev", new File(featureDir)), null, null);
+        Client client = ctx.client;
+        ctx.configure("logMaxBytes", "10");
+        assertSame(client, ctx.client); // only a logging setting, passed per request
+        assertEquals(10, ctx.logMaxBytes);
+    }
+
+    @Test
+    public void testTimeoutsDoNotChangeClient() {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        ScriptEnv env = new ScriptEnv(false, "dev", new File(featureDir), null, Thread.currentThread().getContextClassLoader());
+        ScriptContext ctx = new ScriptContext(env, null, null);
+        Client client = ctx.client;
+        assertNotNull(client);
+        ctx.configure("readTimeout", "1234");
+        ctx.configure("connectTimeout", "4321");
+        assertSame(client, ctx.client); // passed per request
+    }
+
+    @Test
+    public void testReadTimeoutAppliedPerRequest() {
+        stubFor(get(urlEqualTo("/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(2000)));
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        ScriptEnv env = new ScriptEnv(false, "dev", new File(featureDir), null, Thread.currentThread().getContextClassLoader());
+        StepDefs steps = new StepDefs(env, null, null);
+        steps.configure("readTimeout", "200");
+        steps.url("'http://localhost:" + WIREMOCK_RULE.port() + "/slow'");
+        try {
+            steps.method("get");
+            fail("expected a read timeout");
+        } catch (Exception e) {
+            assertTrue(ExceptionUtils.indexOfType(e, SocketTimeoutException.class) != -1);
+        }
+    }
+
+    @Test
+    public void testShutdownClosesClients() {
+        Client client = HttpClientPool.getClient(config(null, 7));
+        HttpClientPool.shutdown();
+        assertEquals(0, HttpClientPool.size());
+        try {
+            client.target("http://localhost:0");
+            fail("expected client to be closed");
+        } catch (IllegalStateException e) {
+            // closed
+        }
+        Client other = HttpClientPool.getClient(config(null, 7));
+        assertNotSame(client, other);
+        assertEquals(1, HttpClientPool.size());
+    }
+
+}
@@ -3,6 +3,7 @@ package com.intuit.karate;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -80,6 +81,15 @@ public class JsonUtilsTest {
         assertEquals("{\"foo\":\"bar\",\"boo\":[3]}", doc.jsonString());
     }
 
+    @Test
+    public void testCompiledJsonPathIsCached() {
+        JsonPath path = JsonUtils.compileJsonPath("$.foo.bar[*].id");
+        assertSame(path, JsonUtils.compileJsonPath("$.foo.bar[*].id"));
+        DocumentContext doc = JsonUtils.toJsonDoc("{ foo: { bar: [{ id: 1 }, { id: 2 }] } }");
+        List ids = doc.read(path);
+        assertEquals(2, ids.size());
+    }
+
     @Test
     public void testLeafName() {
         assertEquals(Pair.of("", "$"), JsonUtils.getParentAndLeafPath("$"));
@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.getIndex(value);
+            assertTrue(LatencyHistogram.getLowestValue(index) <= value);
+            assertTrue(LatencyHistogram.getHighestValue(index) >= value);
+        }
+        assertEquals(127, LatencyHistogram.getIndex(127));
+        assertEquals(128, LatencyHistogram.getIndex(128));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000000L); // 1 to 1000 ms
+        }
+        assertEquals(1000, h.getCount());
+        assertEquals(1000000L, h.getMin());
+        assertEquals(1000000000L, h.getMax());
+        assertEquals(500, LatencyHistogram.toMillis(h.getValueAtPercentile(50)), 500 * 0.02);
+        assertEquals(990, LatencyHistogram.toMillis(h.getValueAtPercentile(99)), 990 * 0.02);
+        assertEquals(1000, LatencyHistogram.toMillis(h.getValueAtPercentile(100)), 0);
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(2000000000L);
+        h.add(other);
+        assertEquals(1001, h.getCount());
+        assertEquals(2000000000L, h.getMax());
+    }
+
+}
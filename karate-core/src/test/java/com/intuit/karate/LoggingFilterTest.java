@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class LoggingFilterTest {
+
+    private static final String REQUEST_BODY = "0123456789abcdefghij";
+    private static final String RESPONSE_BODY = "ABCDEFGHIJKLMNOPQRST";
+
+    @ClassRule
+    public static WireMockClassRule WIREMOCK_RULE = new WireMockClassRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public WireMockClassRule instanceRule = WIREMOCK_RULE;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(LoggingFilter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Client client;
+
+    @Before
+    public void before() {
+        stubFor(post(urlEqualTo("/echo"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "text/plain")
+                        .withBody(RESPONSE_BODY)));
+        appender.start();
+        logger.addAppender(appender); // debug is on in logback-test.xml
+        client = ClientBuilder.newClient().register(new LoggingFilter());
+    }
+
+    @After
+    public void after() {
+        logger.detachAppender(appender);
+        client.close();
+    }
+
+    private String send(int maxBytes) {
+        Response response = client.target("http://localhost:" + WIREMOCK_RULE.port() + "/echo").request()
+                .property(LoggingFilter.MAX_BYTES_KEY, maxBytes)
+                .post(Entity.entity(REQUEST_BODY, MediaType.TEXT_PLAIN));
+        return response.readEntity(String.class);
+    }
+
+    private String getLog(String marker) {
+        for (ILoggingEvent event : appender.list) {
+            if (event.getFormattedMessage().contains(marker)) {
+                return event.getFormattedMessage();
+            }
+        }
+        fail("nothing logged with: " + marker);
+        return null;
+    }
+
+    @Test
+    public void testBodiesTruncatedInLogOnly() {
+        assertEquals(RESPONSE_BODY, send(10)); // the response stream is reset after logging
+        verify(postRequestedFor(urlEqualTo("/echo")).withRequestBody(equalTo(REQUEST_BODY)));
+        String request = getLog(" > POST ");
+        assertTrue(request.endsWith("\n0123456789\n... (truncated to 10 bytes)\n"));
+        String response = getLog(" < 200");
+        assertTrue(response.endsWith("\nABCDEFGHIJ\n... (truncated to 10 bytes)\n"));
+    }
+
+    @Test
+    public void testBodiesNotTruncatedWhenWithinLimit() {
+        assertEquals(RESPONSE_BODY, send(20));
+        assertTrue(getLog(" > POST ").endsWith("\n" + REQUEST_BODY + "\n"));
+        assertTrue(getLog(" < 200").endsWith("\n" + RESPONSE_BODY + "\n"));
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class MatchPlanTest {
+
+    private ScriptContext getContext() {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        ScriptEnv env = ScriptEnv.test("dev", new File(featureDir));
+        return new ScriptContext(env, null, null);
+    }
+
+    private static Object json(String text) {
+        return JsonUtils.toJsonDoc(text).read("$");
+    }
+
+    @Test
+    public void testPlanReusedWhenOnlyPlainValuesDiffer() {
+        ScriptContext ctx = getContext();
+        MatchPlan plan = MatchPlan.get("expected", json("{ a: 1, b: '#string', c: [{ d: '#regex [a-z]+' }] }"), ctx);
+        Object second = json("{ a: 2, b: '#string', c: [{ d: '#regex [a-z]+' }] }");
+        assertSame(plan, MatchPlan.get("expected", second, ctx));
+        // the plain values are taken from what the plan was last bound to
+        assertTrue(plan.match('.', "$", MatchType.EQUALS, null, json("{ a: 2, b: 'x', c: [{ d: 'y' }] }"), ctx).pass);
+        AssertionResult ar = plan.match('.', "$", MatchType.EQUALS, null, json("{ a: 1, b: 'x', c: [{ d: 'Y' }] }"), ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("path: $.a, actual: 1, expected: 2"));
+        ar = plan.match('.', "$", MatchType.EQUALS, null, json("{ a: 2, b: 'x', c: [{ d: 'Y' }] }"), ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("path: $.c[0].d, actual: Y, expected: #regex [a-z]+, reason: regex match failed"));
+    }
+
+    @Test
+    public void testPlanNotReusedWhenStructureOrMarkersDiffer() {
+        ScriptContext ctx = getContext();
+        MatchPlan plan = MatchPlan.get("expected", json("{ a: 1, b: '#string' }"), ctx);
+        assertNotSame(plan, MatchPlan.get("expected", json("{ a: 1, b: '#number' }"), ctx));
+        plan = MatchPlan.get("expected", json("{ a: 1, b: '#string' }"), ctx);
+        assertNotSame(plan, MatchPlan.get("expected", json("{ b: '#string', a: 1 }"), ctx));
+        plan = MatchPlan.get("expected", json("{ a: 1, b: '#string' }"), ctx);
+        assertNotSame(plan, MatchPlan.get("expected", json("{ a: 1, b: '#string', c: 2 }"), ctx));
+        plan = MatchPlan.get("expected", json("{ a: 1, b: '#string' }"), ctx);
+        assertNotSame(plan, MatchPlan.get("expected", json("{ a: '#number', b: '#string' }"), ctx));
+        plan = MatchPlan.get("expected", json("{ a: 1, b: '#string' }"), ctx);
+        assertNotSame(plan, MatchPlan.get("other", json("{ a: 1, b: '#string' }"), ctx));
+    }
+
+    @Test
+    public void testScriptFree() {
+        ScriptContext ctx = getContext();
+        assertTrue(MatchPlan.compile(json("{ a: 1, b: '#string', c: ['#uuid', '#regex .+'] }"), ctx).isScriptFree());
+        assertFalse(MatchPlan.compile(json("{ a: 1, b: [{ c: '#? _ > 0' }] }"), ctx).isScriptFree());
+        assertFalse(MatchPlan.compile(json("{ a: '#(foo)' }"), ctx).isScriptFree());
+        assertTrue(MatchPlan.compile("foo", ctx).isScriptFree());
+    }
+
+    @Test
+    public void testPredicateCompiledOnceAndEvaluatedPerElement() {
+        ScriptContext ctx = getContext();
+        Map<String, Object> exp = (Map) json("{ id: '#? _ > 0', name: '#string' }");
+        MatchPlan plan = MatchPlan.compile(exp, ctx);
+        assertTrue(plan.match('.', "$[0]", MatchType.EQUALS, null, json("{ id: 1, name: 'a' }"), ctx).pass);
+        assertTrue(plan.match('.', "$[1]", MatchType.EQUALS, null, json("{ id: 2, name: 'b' }"), ctx).pass);
+        AssertionResult ar = plan.match('.', "$[2]", MatchType.EQUALS, null, json("{ id: 0, name: 'c' }"), ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("path: $[2].id, actual: 0, expected: #? _ > 0, reason: did not evaluate to 'true'"));
+    }
+
+    @Test
+    public void testParallelMatchEachReportsFirstFailure() throws Exception {
+        ScriptContext ctx = getContext();
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", i);
+            map.put("name", "item" + i);
+            list.add(map);
+        }
+        MatchPlan plan = MatchPlan.compile(json("{ id: '#number', name: '#regex item[0-9]+' }"), ctx);
+        assertTrue(plan.matchEach("$", MatchType.EQUALS, list, list, ctx, true).pass);
+        list.get(9000).put("name", "bad");
+        list.get(7777).put("id", "bad");
+        list.get(3001).put("name", "bad");
+        AssertionResult sequential = plan.matchEach("$", MatchType.EQUALS, list, list, ctx, false);
+        assertFalse(sequential.pass);
+        assertTrue(sequential.message.contains("path: $[3001].name"));
+        for (int i = 0; i < 10; i++) { // whichever chunk fails first, it has to be the same failure
+            AssertionResult parallel = plan.matchEach("$", MatchType.EQUALS, list, list, ctx, true);
+            assertEquals(sequential.message, parallel.message);
+        }
+        ForkJoinPool scenarioPool = new ForkJoinPool(2); // as when scenarios run in parallel
+        try {
+            AssertionResult nested = scenarioPool.submit(() -> plan.matchEach("$", MatchType.EQUALS, list, list, ctx, true)).get();
+            assertEquals(sequential.message, nested.message);
+        } finally {
+            scenarioPool.shutdown();
+        }
+    }
+
+}
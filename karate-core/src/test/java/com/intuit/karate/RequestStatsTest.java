@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import com.intuit.karate.cucumber.KarateStats;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import net.minidev.json.JSONValue;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class RequestStatsTest {
+
+    @ClassRule
+    public static WireMockClassRule WIREMOCK_RULE = new WireMockClassRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public WireMockClassRule instanceRule = WIREMOCK_RULE;
+
+    @Before
+    public void before() {
+        stubFor(get(urlMatching("/cats/.*"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{ \"name\": \"Billie\" }")));
+    }
+
+    private static Map<String, Object> find(List<Map<String, Object>> summary, String name) {
+        for (Map<String, Object> map : summary) {
+            if (map.get("name").equals(name)) {
+                return map;
+            }
+        }
+        fail("no stats for: " + name + " in: " + summary);
+        return null;
+    }
+
+    @Test
+    public void testRequestsGroupedByUrlTemplate() throws Exception {
+        RequestStats stats = new RequestStats();
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        ScriptEnv env = new ScriptEnv(false, "dev", new File(featureDir), null,
+                Thread.currentThread().getContextClassLoader(), stats);
+        StepDefs steps = new StepDefs(env, null, null);
+        String baseUrl = "http://localhost:" + WIREMOCK_RULE.port();
+        steps.def("baseUrl", "'" + baseUrl + "'");
+        for (int i = 1; i <= 3; i++) {
+            steps.def("id", i + "");
+            steps.url("baseUrl");
+            steps.path(Arrays.asList("'cats'", "id"));
+            steps.method("get");
+            steps.status(200);
+            steps.url("baseUrl + '/cats/' + id");
+            steps.method("get");
+            steps.status(200);
+        }
+        List<Map<String, Object>> summary = stats.getSummary();
+        assertEquals(2, summary.size());
+        assertEquals(3L, find(summary, "GET " + baseUrl + "/cats/{id}").get("count"));
+        assertEquals(3L, find(summary, "GET {baseUrl + '/cats/' + id}").get("count"));
+        KarateStats karateStats = KarateStats.startTimer();
+        karateStats.getRequestStats().add(stats);
+        karateStats.stopTimer();
+        File file = karateStats.writeRequestStats("target");
+        Map<String, Object> json = (Map) JSONValue.parse(org.apache.commons.io.FileUtils.readFileToString(file, "utf-8"));
+        Map<String, Object> request = find((List) json.get("requests"), "GET " + baseUrl + "/cats/{id}");
+        for (String key : new String[]{"count", "errors", "min", "mean", "p50", "p90", "p99", "max"}) {
+            assertTrue(key, request.get(key) instanceof Number);
+        }
+    }
+
+    @Test
+    public void testNumberOfKeysIsCapped() {
+        RequestStats stats = new RequestStats();
+        for (int i = 0; i < RequestStats.MAX_KEYS + 10; i++) {
+            stats.record("GET http://host/cats/" + i, 1000000);
+        }
+        Map<String, LatencyHistogram> histograms = stats.getHistograms();
+        assertEquals(RequestStats.MAX_KEYS + 1, histograms.size());
+        assertEquals(10, histograms.get(RequestStats.OTHER_KEY).getCount());
+    }
+
+}
@@ -4,12 +4,15 @@ import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.JsonPath;
 import java.io.File;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.script.Bindings;
 import org.apache.commons.lang3.tuple.Pair;
+import org.bson.BsonDocument;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,6 +74,47 @@ public class ScriptTest {
         assertEquals(3.0, value.getValue());
     }
 
+    @Test
+    public void testNashornEngineReusedButBindingsIsolated() {
+        ScriptContext ctx = getContext();
+        assertSame(Script.getNashorn(), Script.getNashorn());
+        Script.evalInNashorn("var leaked = 'foo'", ctx);
+        ScriptValue value = Script.evalInNashorn("typeof leaked", ctx);
+        assertEquals("undefined", value.getValue());
+    }
+
+    @Test
+    public void testCompiledScriptCacheHits() {
+        ScriptContext ctx = getContext();
+        ctx.vars.put("a", 1);
+        Script.evalInNashorn("a + 41", ctx);
+        long misses = CompiledScriptCache.getMissCount();
+        long hits = CompiledScriptCache.getHitCount();
+        ctx.vars.put("a", 2);
+        ScriptValue value = Script.evalInNashorn("a + 41", ctx);
+        assertEquals(43.0, value.getValue());
+        assertEquals(misses, CompiledScriptCache.getMissCount());
+        assertEquals(hits + 1, CompiledScriptCache.getHitCount());
+    }
+
+    @Test
+    public void testVariableBindingsConvertOnAccessAndMemoize() {
+        ScriptContext ctx = getContext();
+        ctx.vars.put("myXml", XmlUtils.toXmlDoc("<root><foo>bar</foo></root>"));
+        ctx.vars.put("myJson", JsonUtils.toJsonDoc("{ foo: 'bar' }"));
+        Bindings bindings = ctx.getVariableBindings();
+        assertTrue(bindings.containsKey("myXml"));
+        assertFalse(bindings.containsKey("nope"));
+        Object xml = bindings.get("myXml");
+        assertTrue(xml instanceof Map);
+        assertSame(xml, bindings.get("myXml"));
+        bindings.put("myJson", "shadowed");
+        assertEquals("shadowed", bindings.get("myJson"));
+        assertTrue(ctx.vars.get("myJson").getValue() instanceof DocumentContext);
+        ScriptValue value = Script.evalInNashorn("myXml.root.foo", ctx);
+        assertEquals("bar", value.getValue());
+    }
+
     @Test
     public void testEvalMapsAndLists() {
         ScriptContext ctx = getContext();
@@ -635,6 +679,61 @@ public class ScriptTest {
         assertTrue(ar.message.contains("not the same size"));      
     }
 
+    @Test
+    public void testMatchContainsLargeArrays() {
+        ScriptContext ctx = getContext();
+        StringBuilder actual = new StringBuilder("[");
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            if (i > 0) {
+                actual.append(',');
+            }
+            actual.append("{ id: ").append(i).append(", name: 'n").append(i).append("', tags: [1, 2] }");
+            if (i % 2 == 0) {
+                expected.append(i == 0 ? "" : ",").append("{ tags: [1, 2], id: ").append(i).append(", name: 'n").append(i).append("' }");
+            }
+        }
+        Script.assign("json", actual.append("]").toString(), ctx);
+        assertTrue(Script.matchNamed(MatchType.CONTAINS, "json", null, expected.toString() + "]", ctx).pass);
+        // lenient numbers, and null for a key that is not present
+        assertTrue(Script.matchNamed(MatchType.CONTAINS, "json", null, "[{ id: 9999.0, name: 'n9999', tags: [1, 2], foo: null }, { id: 1, name: 'n1', tags: [1.0, 2] }]", ctx).pass);
+        // fuzzy markers are not indexed, so these are found by a full scan
+        assertTrue(Script.matchNamed(MatchType.CONTAINS, "json", null, "[{ id: 5, name: 'n5', tags: [1, 2] }, { id: 7, name: '#string', tags: '#array' }]", ctx).pass);
+        AssertionResult ar = Script.matchNamed(MatchType.CONTAINS, "json", null, "[{ id: 5, name: 'n5', tags: [1, 2] }, { id: 5, name: 'n6', tags: [1, 2] }]", ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("$[*]"));
+        assertTrue(ar.message.contains("expected: {id=5, name=n6, tags=[1,2]}, reason: actual value does not contain expected"));
+        Script.assign("ids", "get json[*].id", ctx);
+        assertTrue(Script.matchNamed(MatchType.CONTAINS, "ids", null, "[9999, 0, 5000]", ctx).pass);
+        assertFalse(Script.matchNamed(MatchType.CONTAINS, "ids", null, "[9999, 10000]", ctx).pass);
+    }
+
+    @Test
+    public void testMatchDeeplyNestedObjects() {
+        ScriptContext ctx = getContext();
+        Map<String, Object> actual = new HashMap<>();
+        Map<String, Object> expected = new HashMap<>();
+        Map<String, Object> actLeaf = actual;
+        Map<String, Object> expLeaf = expected;
+        StringBuilder path = new StringBuilder("$");
+        for (int i = 0; i < 10000; i++) { // would overflow the stack if the match was recursive
+            Map<String, Object> actChild = new HashMap<>();
+            Map<String, Object> expChild = new HashMap<>();
+            actLeaf.put("a", actChild);
+            expLeaf.put("a", expChild);
+            actLeaf = actChild;
+            expLeaf = expChild;
+            path.append(".a");
+        }
+        actLeaf.put("b", 1);
+        expLeaf.put("b", 1);
+        assertTrue(Script.matchNestedObject('.', "$", MatchType.EQUALS, null, actual, expected, ctx).pass);
+        expLeaf.put("b", 2);
+        AssertionResult ar = Script.matchNestedObject('.', "$", MatchType.EQUALS, null, actual, expected, ctx);
+        assertFalse(ar.pass);
+        assertEquals("path: " + path + ".b, actual: 1, expected: 2, reason: not equal", ar.message);
+    }
+
     @Test
     public void testMatchStringContains() {
         ScriptContext ctx = getContext();
@@ -696,6 +795,19 @@ public class ScriptTest {
         assertEquals(3, c.getValue());        
     }
     
+    @Test
+    public void testCallingFeatureDoesNotCopyCallerValues() {
+        ScriptContext ctx = getContext();
+        Script.assign("json", "{ big: [1, 2, 3] }", ctx);
+        Script.assign("xml", "<root><big>1</big></root>", ctx);
+        long before = Script.COPIES.sum();
+        Script.assign("foo", "call read('test.feature')", ctx);
+        assertEquals(0, Script.COPIES.sum() - before);
+        Map<String, Object> result = ctx.vars.get("foo", Map.class);
+        assertSame(ctx.vars.get("json", DocumentContext.class).read("$"), result.get("json"));
+        assertEquals(1, result.get("a"));
+    }
+
     @Test
     public void testCallingFeatureWithList() {
         ScriptContext ctx = getContext();
@@ -808,4 +920,51 @@ public class ScriptTest {
     }
     
 
+    @Test
+    public void testLooseEqualsOfPrimitives() {
+        assertTrue(Script.looseEquals(5, 5L));
+        assertTrue(Script.looseEquals(5.0, 5));
+        assertTrue(Script.looseEquals(0.1f, 0.1));
+        assertTrue(Script.looseEquals(new BigDecimal("5.00"), 5));
+        assertTrue(Script.looseEquals(Long.MAX_VALUE, new BigDecimal(Long.MAX_VALUE)));
+        assertFalse(Script.looseEquals(Long.MAX_VALUE, Long.MAX_VALUE - 1));
+        assertFalse(Script.looseEquals(5, 5.1));
+        assertTrue(Script.looseEquals("5", 5));
+        assertTrue(Script.looseEquals(" 5.0 ", 5L));
+        assertTrue(Script.looseEquals("0x1F", 31));
+        assertTrue(Script.looseEquals("true", true));
+        assertTrue(Script.looseEquals(true, 1));
+        assertTrue(Script.looseEquals(0, false));
+        assertFalse(Script.looseEquals("abc", 1));
+        assertFalse(Script.looseEquals("", 0));
+        assertFalse(Script.looseEquals(null, 0));
+        assertFalse(Script.looseEquals(Double.NaN, Float.NaN)); // same as js
+    }
+
+    @Test
+    public void testMatchPrimitivesOfDifferentTypes() {
+        ScriptContext ctx = getContext();
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", 1L);
+        map.put("b", 2.0);
+        map.put("c", "3");
+        map.put("d", new BigDecimal("4.00"));
+        ctx.vars.put("foo", map);
+        assertTrue(Script.matchNamed(MatchType.EQUALS, "foo", null, "{ a: 1, b: 2, c: '3', d: 4 }", ctx).pass);
+        assertTrue(Script.matchNamed(MatchType.EQUALS, "foo.c", null, "3", ctx).pass);
+        AssertionResult ar = Script.matchNamed(MatchType.EQUALS, "foo", null, "{ a: 1, b: 2.5, c: '3', d: 4 }", ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("path: $.b, actual: 2.0, expected: 2.5, reason: not equal"));
+    }
+
+    @Test
+    public void testEvalBsonWithEmbeddedExpressions() {
+        ScriptContext ctx = getContext();
+        ctx.vars.put("foo", Script.eval("{ bar: 'baz' }", ctx));
+        ScriptValue sv = Script.eval("B{ a: 1, b: '#(foo)', c: '#([1, 2])', d: '#(foo.bar)' }", ctx);
+        assertEquals(ScriptValue.Type.BSON_DOCUMENT, sv.getType());
+        assertEquals(BsonDocument.parse("{ a: 1, b: { bar: 'baz' }, c: [1, 2], d: 'baz' }"), sv.getValue());
+        assertSame(sv, Script.copy(sv)); // immutable, no need to copy
+    }
+
 }
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.jayway.jsonpath.DocumentContext;
+import java.util.Iterator;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class ScriptValueMapTest {
+
+    @Test
+    public void testCopyDoesNotLeakWritesToParent() {
+        ScriptValueMap parent = new ScriptValueMap();
+        parent.put("foo", "bar");
+        ScriptValueMap child = parent.copy();
+        assertEquals("bar", child.get("foo", String.class));
+        child.put("foo", "baz");
+        child.put("extra", 1);
+        assertEquals("bar", parent.get("foo", String.class));
+        assertFalse(parent.containsKey("extra"));
+        child.remove("foo");
+        assertTrue(parent.containsKey("foo"));
+        parent.put("later", true);
+        assertFalse(child.containsKey("later"));
+    }
+
+    @Test
+    public void testCopyDeepCopiesMutableValuesOnRead() {
+        ScriptValueMap parent = new ScriptValueMap();
+        parent.put("json", JsonUtils.toJsonDoc("{ a: 1 }"));
+        ScriptValueMap child = parent.copy();
+        DocumentContext doc = child.get("json", DocumentContext.class);
+        assertNotSame(doc, parent.get("json", DocumentContext.class));
+        doc.put("$", "b", 2);
+        assertSame(doc, child.get("json", DocumentContext.class)); // only copied once
+        assertEquals("{\"a\":1}", parent.get("json", DocumentContext.class).jsonString());
+        assertEquals("{\"a\":1,\"b\":2}", doc.jsonString());
+    }
+
+    @Test
+    public void testEntriesOfCopyAreCopiedOnRead() {
+        ScriptValueMap parent = new ScriptValueMap();
+        parent.put("json", JsonUtils.toJsonDoc("{ a: 1 }"));
+        parent.put("foo", "bar");
+        ScriptValueMap child = parent.copy();
+        for (Map.Entry<String, ScriptValue> entry : child.entrySet()) {
+            if (entry.getKey().equals("json")) {
+                entry.getValue().getValue(DocumentContext.class).put("$", "b", 2);
+            } else {
+                entry.setValue(new ScriptValue("baz"));
+            }
+        }
+        assertEquals("{\"a\":1}", parent.get("json", DocumentContext.class).jsonString());
+        assertEquals("bar", parent.get("foo", String.class));
+        assertEquals("{\"a\":1,\"b\":2}", child.get("json", DocumentContext.class).jsonString());
+        assertEquals("baz", child.get("foo", String.class));
+    }
+
+    @Test
+    public void testKeySetAndEntrySetRemove() {
+        ScriptValueMap parent = new ScriptValueMap();
+        parent.put("foo", 1);
+        parent.put("bar", 2);
+        parent.put("baz", 3);
+        ScriptValueMap child = parent.copy();
+        assertTrue(child.keySet().remove("foo"));
+        assertFalse(child.keySet().remove("foo"));
+        Iterator<Map.Entry<String, ScriptValue>> iterator = child.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey().equals("bar")) {
+                iterator.remove();
+            }
+        }
+        assertEquals(1, child.size());
+        assertTrue(child.containsKey("baz"));
+        assertEquals(3, parent.size());
+        Iterator<String> keys = parent.keySet().iterator(); // not shared once the child has written
+        while (keys.hasNext()) {
+            if (!keys.next().equals("baz")) {
+                keys.remove();
+            }
+        }
+        assertEquals(1, parent.size());
+        assertTrue(parent.containsKey("baz"));
+    }
+
+}
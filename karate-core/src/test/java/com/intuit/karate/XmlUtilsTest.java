@@ -38,6 +38,20 @@ public class XmlUtilsTest {
         assertEquals("baz", value);
     }
 
+    @Test
+    public void testCachedXpathAcrossDocumentsAndThreads() throws Exception {
+        Document first = XmlUtils.toXmlDoc("<foo><bar>one</bar></foo>");
+        Document second = XmlUtils.toXmlDoc("<foo><bar>two</bar></foo>");
+        assertEquals("one", XmlUtils.getValueByPath(first, "/foo/bar"));
+        assertEquals("two", XmlUtils.getValueByPath(second, "/foo/bar"));
+        String[] result = new String[1];
+        Thread thread = new Thread(() -> result[0] = XmlUtils.getValueByPath(XmlUtils.toXmlDoc("<foo><bar>three</bar></foo>"), "/foo/bar"));
+        thread.start();
+        thread.join();
+        assertEquals("three", result[0]);
+        assertEquals("<foo><bar>one</bar></foo>", XmlUtils.toString(first));
+    }
+
     @Test
     public void testConvertingToMap() {
         String xml = "<foo><bar>baz</bar></foo>";
@@ -0,0 +1,8 @@
+function() {
+  karate.configure('configCache', true);
+  var counter = Java.type('com.intuit.karate.ConfigTest').CLOSURE_CONFIG_CALLS;
+  var base = 'http://localhost:' + (8080 + counter.incrementAndGet());
+  return {
+    baseUrl: function(path) { return base + path }
+  };
+}
@@ -0,0 +1,10 @@
+function() {
+  karate.configure('configCache', ['requestId']);
+  var counter = Java.type('com.intuit.karate.ConfigTest').CONFIG_CALLS;
+  return {
+    configCalls: counter.incrementAndGet(),
+    data: { foo: 'bar' },
+    hello: function(name) { return 'hello ' + name },
+    requestId: function() { return java.util.UUID.randomUUID() + '' }
+  };
+}
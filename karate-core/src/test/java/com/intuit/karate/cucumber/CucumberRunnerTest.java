@@ -25,6 +25,9 @@ package com.intuit.karate.cucumber;
 
 import cucumber.api.CucumberOptions;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.apache.commons.io.FileUtils;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
@@ -40,6 +43,9 @@ import org.slf4j.LoggerFactory;
 public class CucumberRunnerTest {
     
     private static final Logger logger = LoggerFactory.getLogger(CucumberRunnerTest.class);
+
+    // appended to by sequential.feature
+    public static final List<String> SEQUENCE = Collections.synchronizedList(new ArrayList<>());
     
     private boolean contains(String reportPath, String textToFind) {
         try {
@@ -72,16 +78,35 @@ public class CucumberRunnerTest {
         assertTrue(contains(reportPath, "When def a = 55"));
     }  
     
+    @Test
+    public void testScenarioUnits() {
+        File file = new File("src/test/java/com/intuit/karate/cucumber/outline.feature");
+        CucumberRunner runner = new CucumberRunner(file);
+        assertEquals(4, CucumberRunner.getScenarioUnits(runner.getFeatureFiles().get(0)).size());
+        file = new File("src/test/java/com/intuit/karate/cucumber/no-scenario-name.feature");
+        runner = new CucumberRunner(file);
+        assertEquals(5, CucumberRunner.getScenarioUnits(runner.getFeatureFiles().get(0)).size());
+        file = new File("src/test/java/com/intuit/karate/cucumber/sequential.feature");
+        runner = new CucumberRunner(file);
+        assertEquals(1, CucumberRunner.getScenarioUnits(runner.getFeatureFiles().get(0)).size());
+    }
+    
     @Test 
     public void testParallel() {
-        KarateStats stats = CucumberRunner.parallel(getClass(), 1);
+        SEQUENCE.clear();
+        KarateStats stats = CucumberRunner.parallel(getClass(), 3);
         assertEquals(1, stats.getFailCount());
         String pathBase = "target/surefire-reports/TEST-com.intuit.karate.cucumber.";
         assertTrue(contains(pathBase + "scenario.xml", "Then match b == { foo: 'bar'}"));
         assertTrue(contains(pathBase + "outline.xml", "Then assert a == 55"));
         assertTrue(contains(pathBase + "multi-scenario.xml", "Then assert a != 2"));
+        assertTrue(contains(pathBase + "sequential.xml", "* assert b == 2"));
+        assertEquals(2, SEQUENCE.size()); // in order, on one thread
+        String thread = SEQUENCE.get(0).substring("first ".length());
+        assertEquals("second " + thread, SEQUENCE.get(1));
         assertEquals(1, stats.getFailedList().size());
         assertEquals("com.intuit.karate.cucumber.no-scenario-name", stats.getFailedList().get(0));
+        assertTrue(new File("target/surefire-reports/" + KarateStats.REQUEST_STATS_FILE).exists());
     }
     
 }
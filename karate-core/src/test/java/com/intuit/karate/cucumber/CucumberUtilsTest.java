@@ -2,8 +2,11 @@ package com.intuit.karate.cucumber;
 
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.ScriptEnv;
+import com.intuit.karate.StepDefs;
 import java.io.File;
 import java.io.InputStream;
+import gherkin.formatter.model.Step;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -143,4 +146,58 @@ public class CucumberUtilsTest {
         assertTrue(step.isHttpCall());
     }
 
+    @Test
+    public void testStepDefinitionsSharedAcrossBackends() {
+        ScriptEnv env = getEnv();
+        KarateBackend one = CucumberUtils.getBackend(env, null, null);
+        KarateBackend two = CucumberUtils.getBackend(env, null, null);
+        assertSame(KarateStepDefinition.getTemplates(StepDefs.class), KarateStepDefinition.getTemplates(StepDefs.class));
+        FeatureWrapper fw = FeatureWrapper.fromString("Feature:\n\nScenario:\n* def a = 1\n", env);
+        StepWrapper step = fw.getSections().get(0).getScenario().getSteps().get(0);
+        assertTrue(step.run(one).isPass());
+        assertEquals(1, one.getStepDefs().getContext().getVars().get("a").getValue());
+        assertNull(two.getStepDefs());
+    }
+
+    @Test
+    public void testStepLiteralPrefix() {
+        assertEquals("configure ", StepDefinitionIndex.getLiteralPrefix("^configure ([^\\s]+) =$"));
+        assertEquals("await", StepDefinitionIndex.getLiteralPrefix("^await( .+)?"));
+        assertEquals("request", StepDefinitionIndex.getLiteralPrefix("^request$"));
+        assertEquals("def", StepDefinitionIndex.getLiteralPrefix("^defs? (.+)"));
+        assertEquals("", StepDefinitionIndex.getLiteralPrefix("^(\\w+) = (.+)"));
+        assertEquals("", StepDefinitionIndex.getLiteralPrefix("^foo|bar"));
+        assertEquals("", StepDefinitionIndex.getLiteralPrefix("def (.+)"));
+    }
+
+    @Test
+    public void testStepIndexMatchesSameAsFullScan() {
+        StepDefinitionIndex index = KarateStepDefinition.getIndex(StepDefs.class);
+        String[] names = {"def a = 1", "def a =", "request", "request { a: 1 }", "method get", "method get async",
+            "await", "await foo", "awaiting", "match each foo == bar", "match foo contains only [1]", "form field a = 1",
+            "soap action 'x'", "status 200", "call read('foo.feature')", "url 'http://foo'", "no such step"};
+        for (String name : names) {
+            Step step = new Step(null, "* ", name, 1, null, null);
+            List<KarateStepDefinition> expected = new ArrayList<>();
+            for (KarateStepDefinition def : index.getDefinitions()) {
+                if (def.matchedArguments(step) != null) {
+                    expected.add(def);
+                }
+            }
+            List<KarateStepDefinition> actual = new ArrayList<>();
+            for (KarateStepDefinition def : index.getCandidates(name)) {
+                if (def.matchedArguments(step) != null) {
+                    actual.add(def);
+                }
+            }
+            assertEquals(name, expected, actual);
+            StepDefinitionIndex.Resolved resolved = index.resolve(step);
+            if (expected.size() == 1) {
+                assertSame(resolved, index.resolve(step));
+            } else {
+                assertNull(resolved);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.ScriptEnv;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class FeatureCacheTest {
+
+    private static final String TEXT = "Feature:\n\nScenario:\n* def a = 1\n";
+
+    private ScriptEnv getEnv(String dir) {
+        return new ScriptEnv(false, "dev", new File(dir), null, getClass().getClassLoader());
+    }
+
+    @Test
+    public void testParsedOnceAndBoundToCallerEnv() {
+        AtomicInteger reads = new AtomicInteger();
+        String location = "/cache-test/" + System.nanoTime() + ".feature";
+        ScriptEnv env1 = getEnv("one");
+        ScriptEnv env2 = getEnv("two");
+        FeatureWrapper first = FeatureCache.get(location, 1, () -> {
+            reads.incrementAndGet();
+            return TEXT;
+        }, env1);
+        long hits = FeatureCache.getHitCount();
+        FeatureWrapper second = FeatureCache.get(location, 1, () -> {
+            reads.incrementAndGet();
+            return TEXT;
+        }, env2);
+        assertEquals(1, reads.get());
+        assertEquals(hits + 1, FeatureCache.getHitCount());
+        assertSame(first.getFeature(), second.getFeature());
+        assertSame(env1, first.getEnv());
+        assertSame(env2, second.getEnv());
+        assertSame(second, second.getSections().get(0).getScenario().getFeature());
+        // changed on disk
+        FeatureWrapper third = FeatureCache.get(location, 2, () -> {
+            reads.incrementAndGet();
+            return TEXT + "* def b = 2\n";
+        }, env1);
+        assertEquals(2, reads.get());
+        assertEquals(2, third.getSections().get(0).getScenario().getSteps().size());
+    }
+
+    @Test
+    public void testEditingReturnsCopy() {
+        FeatureWrapper fw = FeatureWrapper.fromString(TEXT, getEnv("."));
+        FeatureWrapper edited = fw.addLine(4, "* def b = 2");
+        assertEquals(4, fw.getLines().size());
+        assertEquals(5, edited.getLines().size());
+    }
+
+}
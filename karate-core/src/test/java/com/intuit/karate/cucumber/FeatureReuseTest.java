@@ -50,4 +50,27 @@ public class FeatureReuseTest {
         assertTrue(contents.contains("assert evaluated to false: input != 4"));
     }
     
+    @Test
+    public void testParallelCallKeepsOrder() throws Exception {
+        String reportPath = "target/parallel-call.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/caller-parallel.feature");
+        CucumberRunner runner = new CucumberRunner(file);  
+        KarateJunitFormatter formatter = new KarateJunitFormatter(file.getPath(), reportPath);
+        runner.run(formatter);
+        formatter.done();
+        assertEquals(0, formatter.getFailCount());
+    }
+    
+    @Test
+    public void testParallelCallReportsFailedIndex() throws Exception {
+        String reportPath = "target/parallel-call-fail.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/caller-parallel-fail.feature");
+        CucumberRunner runner = new CucumberRunner(file);  
+        KarateJunitFormatter formatter = new KarateJunitFormatter(file.getPath(), reportPath);
+        runner.run(formatter);
+        formatter.done();
+        String contents = FileUtils.readFileToString(new File(reportPath), "utf-8");
+        assertTrue(contents.contains("loop feature call failed, indexes: [3], items: 5"));
+    }
+    
 }
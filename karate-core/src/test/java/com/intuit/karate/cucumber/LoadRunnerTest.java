@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import cucumber.api.CucumberOptions;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+@CucumberOptions(features = "classpath:com/intuit/karate/cucumber/scenario.feature")
+public class LoadRunnerTest {
+
+    @Test
+    public void testConstantUsers() {
+        LoadStats stats = LoadRunner.run(getClass(), LoadProfile.users(2, 100, 500));
+        assertTrue(stats.getScenarioCount() > 2);
+        assertEquals(0, stats.getFailCount());
+        assertTrue(stats.getRequestStats().isEmpty()); // no http calls in this feature
+    }
+
+    @Test
+    public void testArrivalRate() {
+        LoadStats stats = LoadRunner.run(getClass(), LoadProfile.rate(20, 2, 0, 500));
+        assertEquals(10, stats.getScenarioCount());
+        assertEquals(0, stats.getFailCount());
+    }
+
+    @Test
+    public void testArrivalRateSchedule() {
+        LoadProfile profile = LoadProfile.rate(10, 1, 2000, 5000);
+        long second = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(0, profile.getScheduledTime(0));
+        // 10 scenarios during the 2 second ramp-up, then one every 100 ms
+        assertEquals(2 * second, profile.getScheduledTime(10));
+        assertEquals(2 * second + second / 10, profile.getScheduledTime(11), 1000);
+        // users start evenly spread across the ramp-up
+        assertEquals(second, LoadProfile.users(2, 2000, 5000).getUserStartTime(1));
+    }
+
+}
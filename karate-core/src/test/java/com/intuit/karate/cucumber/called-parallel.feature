@@ -0,0 +1,8 @@
+@ignore
+Feature:
+
+Scenario:
+* def doubled = twice(input)
+* set doc /root/value = input
+* def value = get doc /root/value
+* def thread = java.lang.Thread.currentThread().getName()
@@ -0,0 +1,15 @@
+@ignore
+Feature:
+
+Background:
+* configure callThreads = 2
+* table data =
+| input |
+| 1     |
+| 2     |
+| 3     |
+| 4     |
+| 5     |
+
+Scenario:
+* def result = call read('called.feature') data
@@ -0,0 +1,22 @@
+@ignore
+Feature:
+
+Background:
+* configure callThreads = 3
+* def twice = function(x){ return x * 2 }
+* def doc = <root><value>0</value></root>
+* table data =
+| input |
+| 1     |
+| 2     |
+| 3     |
+| 4     |
+| 5     |
+
+Scenario:
+* def result = call read('called-parallel.feature') data
+* match result[*].doubled == [2, 4, 6, 8, 10]
+* match result[*].value == ['1', '2', '3', '4', '5']
+* match doc/root/value == '0'
+* def threads = get result[*].thread
+* match each threads == '#regex karate-call-[0-9]+'
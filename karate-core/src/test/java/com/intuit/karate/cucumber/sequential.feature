@@ -0,0 +1,16 @@
+@parallel=false
+Feature: scenarios that must not be split across threads
+
+Background:
+* def Test = Java.type('com.intuit.karate.cucumber.CucumberRunnerTest')
+* def thread = java.lang.Thread.currentThread().getName()
+
+Scenario: first
+* def a = 1
+* assert a == 1
+* def added = Test.SEQUENCE.add('first ' + thread)
+
+Scenario: second
+* def b = 2
+* assert b == 2
+* def added = Test.SEQUENCE.add('second ' + thread)
@@ -0,0 +1,47 @@
+package demo;
+
+import com.intuit.karate.LatencyHistogram;
+import com.intuit.karate.cucumber.LoadProfile;
+import com.intuit.karate.cucumber.LoadRunner;
+import com.intuit.karate.cucumber.LoadStats;
+import cucumber.api.CucumberOptions;
+import java.util.Map;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import test.ServerStart;
+
+/**
+ * re-uses the functional tests for the cats end-point as a (short) load test
+ */
+@CucumberOptions(features = "classpath:demo/cats/cats.feature")
+public class DemoTestLoad {
+    
+    private static ServerStart server;
+    
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        server = new ServerStart();
+        server.start(new String[]{"--server.port=0"}, false);
+        System.setProperty("karate.server.port", server.getPort() + "");
+    }
+    
+    @AfterClass
+    public static void afterClass() {
+        server.stop();
+    }    
+    
+    @Test
+    public void testLoad() {
+        // 20 scenarios per second after a 1 second ramp-up, with at most 5 running at a time
+        LoadStats stats = LoadRunner.run(getClass(), LoadProfile.rate(20, 5, 1000, 3000));
+        assertEquals("there are scenario failures", 0, stats.getFailCount());
+        Map<String, LatencyHistogram> requests = stats.getRequestStats().getHistograms();
+        assertFalse(requests.isEmpty());
+        for (LatencyHistogram histogram : requests.values()) {
+            assertTrue(histogram.getValueAtPercentile(99) > 0);
+        }
+    }
+    
+}
@@ -34,6 +34,8 @@ public class DemoTestParallel {
     public void testParallel() {
         KarateStats stats = CucumberRunner.parallel(getClass(), 5, "target/surefire-reports");
         assertTrue("there are scenario failures", stats.getFailCount() == 0);
+        // timings are grouped by url template, and not one per cat
+        assertTrue(stats.getRequestStats().getHistograms().keySet().stream().anyMatch(k -> k.endsWith("/cats/{id}")));
     }
     
 }
@@ -0,0 +1,11 @@
+package demo.async;
+
+import demo.TestBase;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class AsyncRunner extends TestBase {
+    
+}
@@ -0,0 +1,65 @@
+Feature: requests that overlap within a scenario
+
+Background:
+* url demoBaseUrl
+
+Scenario: fire two creates and await each
+
+Given path 'cats'
+And request { name: 'Bob' }
+When method post async
+* def bob = requestHandle
+
+Given path 'cats'
+And request { name: 'Wild' }
+When method post async
+* def wild = requestHandle
+
+When await bob
+Then status 200
+And match response == { id: '#number', name: 'Bob' }
+And assert responseTime >= 0
+* def bobId = response.id
+
+When await wild
+Then status 200
+And match response == { id: '#number', name: 'Wild' }
+* def wildId = response.id
+
+Given path 'cats', bobId
+When method get async
+And await
+Then status 200
+And match response == { id: '#(bobId)', name: 'Bob' }
+
+Given path 'cats'
+When method get
+Then status 200
+And match response contains [{ id: '#(bobId)', name: 'Bob' }, { id: '#(wildId)', name: 'Wild' }]
+
+Scenario: configured headers are applied to async requests
+
+Given path 'headers'
+When method get
+Then status 200
+And def token = response
+And def time = cookies['time']
+
+* configure headers = read('classpath:headers.js')
+
+Given path 'headers', token
+And param url = demoBaseUrl
+When method get async
+And await
+Then status 200
+
+Scenario: a headers function that returns no headers is still called only once per async request
+
+* def counter = new java.util.concurrent.atomic.AtomicInteger()
+* configure headers = function(){ counter.incrementAndGet(); return null }
+
+Given path 'cats'
+When method get async
+And await
+Then status 200
+* assert counter.get() == 1
@@ -1,5 +1,6 @@
 package com.intuit.karate.junit4.wiremock;
 
+import com.intuit.karate.BsonUtils;
 import com.intuit.karate.junit4.Karate;
 import org.junit.BeforeClass;
 import org.junit.runner.RunWith;
@@ -7,6 +8,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import java.util.UUID;
+import org.bson.BsonDocument;
 import org.junit.ClassRule;
 import org.junit.Rule;
 
@@ -51,6 +53,13 @@ public class HelloWorldTest {
                         .withStatus(200)
                         .withHeader("Content-Type", "application/json")
                         .withBody("{ id: \"" + uuid + "\", name: \"Dummy\" }")));         
+        BsonDocument bson = BsonDocument.parse("{ id: '" + uuid + "', name: 'Billie', age: 3, owner: { name: 'Bob' }, tags: ['a', 'b'] }");
+        stubFor(post(urlEqualTo("/v1/cats/bson"))
+                .withHeader("Content-Type", equalTo("application/octet-stream"))
+                .willReturn(aResponse()
+                        .withStatus(201)
+                        .withHeader("Content-Type", "application/bson")
+                        .withBody(BsonUtils.toByteArray(bson))));
     }
 
 }
@@ -13,3 +13,22 @@ And match response == { id: '#ignore', name: 'Billie' }
 Given path response.id
 When method get
 Then status 200
+
+Scenario: the request and response are not affected by a small log limit
+
+* configure logMaxBytes = 10
+Given url 'http://localhost:' + wiremockPort + '/v1/cats'
+And request { name: 'Billie' }
+When method post
+Then status 201
+And match response == { id: '#uuid', name: 'Billie' }
+
+Scenario: bson request and response
+
+Given url 'http://localhost:' + wiremockPort + '/v1/cats/bson'
+And request B{ name: 'Billie' }
+When method post
+Then status 201
+And match response.owner.name == 'Bob'
+And match response.tags[1] == 'b'
+And match response == { id: '#uuid', name: 'Billie', age: 3, owner: { name: 'Bob' }, tags: ['a', 'b'] }